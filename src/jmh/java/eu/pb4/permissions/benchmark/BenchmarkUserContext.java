@@ -0,0 +1,53 @@
+package eu.pb4.permissions.benchmark;
+
+import com.mojang.authlib.GameProfile;
+import eu.pb4.permissions.api.v0.UserContext;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * UserContext not backed by any player or server, used for benchmarking providers
+ */
+public final class BenchmarkUserContext implements UserContext {
+    private final int level;
+    private final GameProfile gameProfile;
+
+    public BenchmarkUserContext(int level) {
+        this.level = level;
+        this.gameProfile = new GameProfile(new UUID(0, level), "Benchmark" + level);
+    }
+
+    @Override
+    public int getPermissionLevel() {
+        return this.level;
+    }
+
+    @Override
+    public GameProfile getGameProfile() {
+        return this.gameProfile;
+    }
+
+    @Override
+    public UUID getUuid() {
+        return this.gameProfile.getId();
+    }
+
+    @Override
+    public @Nullable ServerPlayerEntity getPlayerEntity() {
+        return null;
+    }
+
+    @Override
+    public @Nullable Entity getEntity() {
+        return null;
+    }
+
+    @Override
+    public @Nullable ServerWorld getWorld() {
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package eu.pb4.permissions.benchmark;
+
+import eu.pb4.permissions.api.v0.PermissionValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares loops listing flat permission maps (same as ones used by LuckPerms provider in testmod)
+ * with stream pipelines used before. Stream versions are kept here as a baseline only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionMapBenchmark {
+    private static final int PARENT_COUNT = 64;
+
+    /**
+     * Amount of permissions in map
+     */
+    @Param({"100", "5000"})
+    public int size;
+
+    private Map<String, Boolean> permissions;
+    private String[] parents;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+        this.permissions = new HashMap<>();
+        this.parents = new String[PARENT_COUNT];
+
+        for (int i = 0; i < PARENT_COUNT; i++) {
+            this.parents[i] = "mod" + i + ".command";
+        }
+
+        while (this.permissions.size() < this.size) {
+            this.permissions.put(this.parents[random.nextInt(PARENT_COUNT)] + "." + random.nextInt(this.size), random.nextInt(4) != 0);
+        }
+    }
+
+    private String nextParent() {
+        return this.parents[this.index = (this.index + 1) & (PARENT_COUNT - 1)];
+    }
+
+    @Benchmark
+    public List<String> getListStream() {
+        return this.permissions.entrySet().stream().filter(Map.Entry::getValue).map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> getList() {
+        return getListFrom(this.permissions, PermissionValue.TRUE);
+    }
+
+    @Benchmark
+    public List<String> getListParentStream() {
+        String parent = this.nextParent();
+        return this.permissions.entrySet().stream().filter(Map.Entry::getValue)
+                .filter(n -> n.getKey().startsWith(parent)).map(n -> n.getKey().substring(parent.length() + 1)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> getListParent() {
+        return getListFrom(this.permissions, this.nextParent(), PermissionValue.TRUE);
+    }
+
+    @Benchmark
+    public Map<String, PermissionValue> getAllLoop() {
+        Map<String, PermissionValue> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Boolean> entry : this.permissions.entrySet()) {
+            map.put(entry.getKey(), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, PermissionValue> getAll() {
+        return getAllFrom(this.permissions);
+    }
+
+    @Benchmark
+    public Map<String, PermissionValue> getAllParentLoop() {
+        String parent = this.nextParent();
+        Map<String, PermissionValue> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Boolean> entry : this.permissions.entrySet()) {
+            if (entry.getKey().startsWith(parent)) {
+                map.put(entry.getKey().substring(parent.length() + 1), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
+            }
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, PermissionValue> getAllParent() {
+        return getAllFrom(this.permissions, this.nextParent());
+    }
+
+    private static List<String> getListFrom(Map<String, Boolean> permissions, PermissionValue value) {
+        List<String> list = new ArrayList<>(value == PermissionValue.DEFAULT ? permissions.size() : 10);
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            if (value == PermissionValue.DEFAULT || entry.getValue() == (value == PermissionValue.TRUE)) {
+                list.add(entry.getKey());
+            }
+        }
+        return list;
+    }
+
+    private static List<String> getListFrom(Map<String, Boolean> permissions, String parentPermission, PermissionValue value) {
+        List<String> list = new ArrayList<>();
+        int length = parentPermission.length();
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > length + 1 && key.charAt(length) == '.' && key.startsWith(parentPermission)
+                    && (value == PermissionValue.DEFAULT || entry.getValue() == (value == PermissionValue.TRUE))) {
+                list.add(key.substring(length + 1));
+            }
+        }
+        return list;
+    }
+
+    private static Map<String, PermissionValue> getAllFrom(Map<String, Boolean> permissions) {
+        Map<String, PermissionValue> map = new LinkedHashMap<>((int) (permissions.size() / 0.75f) + 1);
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            map.put(entry.getKey(), PermissionValue.of(entry.getValue()));
+        }
+        return map;
+    }
+
+    private static Map<String, PermissionValue> getAllFrom(Map<String, Boolean> permissions, String parentPermission) {
+        Map<String, PermissionValue> map = new LinkedHashMap<>();
+        int length = parentPermission.length();
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > length + 1 && key.charAt(length) == '.' && key.startsWith(parentPermission)) {
+                map.put(key.substring(length + 1), PermissionValue.of(entry.getValue()));
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,37 @@
+package eu.pb4.permissions.benchmark;
+
+import eu.pb4.permissions.api.v0.UserContext;
+import net.minecraft.server.command.CommandOutput;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.math.Vec2f;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creation of UserContext for non-player command sources (console, command blocks, functions).
+ * With gc profiler (enabled by default in `jmh` task), gc.alloc.rate.norm of consoleSource should be 0,
+ * as no exceptions are created and context of repeatedly checked source is reused.
+ * Each new source (vanilla creates one per executed command) still allocates a single context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserContextBenchmark {
+    private ServerCommandSource consoleSource;
+
+    @Setup
+    public void setup() {
+        this.consoleSource = new ServerCommandSource(CommandOutput.DUMMY, Vec3d.ZERO, Vec2f.ZERO, null, 4, "Server", new LiteralText("Server"), null, null);
+    }
+
+    @Benchmark
+    public UserContext consoleSource() {
+        return UserContext.of(this.consoleSource);
+    }
+}
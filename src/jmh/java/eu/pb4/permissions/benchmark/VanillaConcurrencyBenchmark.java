@@ -0,0 +1,93 @@
+package eu.pb4.permissions.benchmark;
+
+import eu.pb4.permissions.api.v0.PermissionValue;
+import eu.pb4.permissions.api.v0.UserContext;
+import eu.pb4.permissions.impl.VanillaConfig;
+import eu.pb4.permissions.impl.VanillaPermissionProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress test of concurrent checks, while config is being reloaded.
+ * Reloads alternate between configs with every permission set to true and to false,
+ * so a check resolving to PermissionValue.DEFAULT means it saw partially built permissions, which fails the run.
+ * Scaling of readers can be measured with -t, for example -PjmhArgs="VanillaConcurrencyBenchmark.check -t 8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VanillaConcurrencyBenchmark {
+    private static final int PERMISSION_COUNT = 1000;
+
+    private VanillaPermissionProvider provider;
+    private VanillaConfig trueConfig;
+    private VanillaConfig falseConfig;
+    private UserContext user;
+    private String[] permissions;
+    private boolean reloadToTrue;
+
+    @Setup
+    public void setup() {
+        this.trueConfig = createConfig(true);
+        this.falseConfig = createConfig(false);
+        this.provider = VanillaPermissionProvider.createInstance(null, this.trueConfig);
+        this.user = new BenchmarkUserContext(4);
+        this.permissions = new String[PERMISSION_COUNT];
+
+        for (int i = 0; i < PERMISSION_COUNT; i++) {
+            this.permissions[i] = getPermission(i);
+        }
+    }
+
+    private static String getPermission(int index) {
+        return "stress." + (index % 10) + ".node" + index;
+    }
+
+    private static VanillaConfig createConfig(boolean value) {
+        VanillaConfig config = new VanillaConfig();
+        List<Map<String, Boolean>> levels = List.of(config.defaultPermissions, config.level1Permissions,
+                config.level2Permissions, config.level3Permissions, config.level4Permissions);
+
+        for (int i = 0; i < PERMISSION_COUNT; i++) {
+            levels.get(i % levels.size()).put(getPermission(i), value);
+        }
+        return config;
+    }
+
+    private PermissionValue checkRandom() {
+        String permission = this.permissions[ThreadLocalRandom.current().nextInt(PERMISSION_COUNT)];
+        PermissionValue value = this.provider.check(this.user, permission);
+        if (value == PermissionValue.DEFAULT) {
+            throw new IllegalStateException("Permission " + permission + " resolved to default while reloading");
+        }
+        return value;
+    }
+
+    @Benchmark
+    public PermissionValue check() {
+        return this.checkRandom();
+    }
+
+    @Benchmark
+    @Group("reload")
+    @GroupThreads(3)
+    public PermissionValue checkWhileReloading() {
+        return this.checkRandom();
+    }
+
+    @Benchmark
+    @Group("reload")
+    @GroupThreads(1)
+    public void reload() {
+        // Only this thread writes the flag
+        this.reloadToTrue = !this.reloadToTrue;
+        this.provider.setConfig(this.reloadToTrue ? this.trueConfig : this.falseConfig);
+    }
+}
@@ -0,0 +1,186 @@
+package eu.pb4.permissions.benchmark;
+
+import eu.pb4.permissions.api.v0.PermissionKey;
+import eu.pb4.permissions.api.v0.PermissionRegistry;
+import eu.pb4.permissions.api.v0.PermissionValue;
+import eu.pb4.permissions.api.v0.UserContext;
+import eu.pb4.permissions.api.v0.ValueAdapter;
+import eu.pb4.permissions.api.v0.ValueOrder;
+import eu.pb4.permissions.impl.VanillaConfig;
+import eu.pb4.permissions.impl.VanillaPermissionProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hot paths of VanillaPermissionProvider with synthetic configs, without running a server.
+ * Permissions are generated with fixed seed, so results of different runs can be compared.
+ * Parameters can be narrowed down with -p, for example -PjmhArgs="VanillaPermissionProviderBenchmark -p nodes=50000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VanillaPermissionProviderBenchmark {
+    private static final int QUERY_COUNT = 1024;
+
+    /**
+     * Total amount of permission nodes, spread over default and operator levels
+     */
+    @Param({"10", "1000", "50000"})
+    public int nodes;
+
+    /**
+     * Amount of segments in every permission
+     */
+    @Param({"2", "6"})
+    public int depth;
+
+    /**
+     * Part of nodes ending with a wildcard (.*)
+     */
+    @Param({"0.0", "0.1"})
+    public double wildcards;
+
+    /**
+     * Part of checks ending with ".?"
+     */
+    @Param({"0.0", "0.25"})
+    public double anyChildChecks;
+
+    /**
+     * If resolved checks should be memoized per operator level
+     */
+    @Param({"false", "true"})
+    public boolean memoize;
+
+    /**
+     * If checked permissions should be registered in PermissionRegistry, allowing bitset lookups.
+     * Every parameter combination runs in separate fork, so registered keys don't leak into other runs
+     */
+    @Param({"false", "true"})
+    public boolean registered;
+
+    private VanillaPermissionProvider provider;
+    private UserContext user;
+    private String[] permissions;
+    private PermissionKey[] keys;
+    private String[] parents;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+        VanillaConfig config = new VanillaConfig();
+        config.memoizeChecks = this.memoize;
+        List<Map<String, Boolean>> levels = List.of(config.defaultPermissions, config.level1Permissions,
+                config.level2Permissions, config.level3Permissions, config.level4Permissions);
+
+        // Large enough to always have more possible permissions than requested nodes
+        int fanout = Math.max(2, (int) Math.ceil(Math.pow(this.nodes, 1.0 / this.depth)) * 2);
+        Set<String> used = new HashSet<>();
+        List<String> existing = new ArrayList<>();
+
+        while (used.size() < this.nodes) {
+            String permission = createPermission(random, fanout, this.depth);
+            if (random.nextDouble() < this.wildcards) {
+                permission = permission.substring(0, permission.lastIndexOf('.')) + ".*";
+            }
+
+            if (used.add(permission)) {
+                levels.get(random.nextInt(levels.size())).put(permission, random.nextInt(4) != 0);
+                if (!permission.endsWith(".*")) {
+                    existing.add(permission);
+                }
+            }
+        }
+        if (existing.isEmpty()) {
+            existing.add(createPermission(random, fanout, this.depth));
+        }
+
+        this.provider = VanillaPermissionProvider.createInstance(null, config);
+        this.user = new BenchmarkUserContext(4);
+        this.permissions = new String[QUERY_COUNT];
+        this.keys = new PermissionKey[QUERY_COUNT];
+        this.parents = new String[QUERY_COUNT];
+
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String permission = existing.get(random.nextInt(existing.size()));
+            String parent = permission.substring(0, permission.lastIndexOf('.'));
+
+            if (random.nextDouble() < this.anyChildChecks) {
+                this.permissions[i] = parent + ".?";
+            } else if (random.nextBoolean()) {
+                this.permissions[i] = permission;
+            } else {
+                // Mostly missing permissions, resolved by wildcards or to default
+                this.permissions[i] = createPermission(random, fanout, this.depth);
+            }
+            this.keys[i] = this.registered && !this.permissions[i].endsWith(".?")
+                    ? PermissionRegistry.register(this.permissions[i]) : PermissionKey.of(this.permissions[i]);
+            this.parents[i] = parent;
+        }
+    }
+
+    private static String createPermission(Random random, int fanout, int depth) {
+        StringBuilder builder = new StringBuilder("node").append(random.nextInt(fanout));
+        for (int i = 1; i < depth; i++) {
+            builder.append('.').append(random.nextInt(fanout));
+        }
+        return builder.toString();
+    }
+
+    private int next() {
+        return this.index = (this.index + 1) & (QUERY_COUNT - 1);
+    }
+
+    @Benchmark
+    public PermissionValue check() {
+        return this.provider.check(this.user, this.permissions[this.next()]);
+    }
+
+    @Benchmark
+    public PermissionValue checkKey() {
+        return this.provider.check(this.user, this.keys[this.next()]);
+    }
+
+    @Benchmark
+    public PermissionValue hasAnyUnder() {
+        return this.provider.hasAnyUnder(this.user, this.parents[this.next()]);
+    }
+
+    @Benchmark
+    public void getList(Blackhole blackhole) {
+        for (String permission : this.provider.getList(this.user, this.parents[this.next()])) {
+            blackhole.consume(permission);
+        }
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        for (Map.Entry<String, PermissionValue> entry : this.provider.getAll(this.user, this.parents[this.next()]).entrySet()) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    public void getListRegistered(Blackhole blackhole) {
+        for (String permission : this.provider.getListRegistered(this.user, this.parents[this.next()], PermissionValue.TRUE)) {
+            blackhole.consume(permission);
+        }
+    }
+
+    @Benchmark
+    public Integer getAsValue() {
+        return this.provider.getAsValue(this.user, this.parents[this.next()], 0, ValueAdapter.INTEGER);
+    }
+
+    @Benchmark
+    public int getAsInt() {
+        return this.provider.getAsInt(this.user, this.parents[this.next()], 0, ValueOrder.HIGHEST);
+    }
+}
@@ -1,5 +1,7 @@
 package eu.pb4.permissions;
 
+import eu.pb4.permissions.impl.CachingPermissionProvider;
+import eu.pb4.permissions.impl.CommandTreeUpdater;
 import net.fabricmc.api.ModInitializer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -9,6 +11,7 @@ public class PermissionsAPIMod implements ModInitializer {
 
     @Override
     public void onInitialize() {
-
+        CachingPermissionProvider.register();
+        CommandTreeUpdater.register();
     }
 }
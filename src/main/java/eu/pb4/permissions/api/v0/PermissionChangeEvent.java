@@ -0,0 +1,58 @@
+package eu.pb4.permissions.api.v0;
+
+import eu.pb4.permissions.impl.PermissionsImpl;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Called by providers after permissions or groups change, so anything caching results of checks can update them.
+ * It can be invoked from any thread, not only the server one.
+ */
+@FunctionalInterface
+public interface PermissionChangeEvent {
+    /**
+     * Called after permissions change
+     *
+     * @param uuid UUID of affected user or null if it could affect all of them (or all members of group, if it's provided)
+     * @param permission Changed permission (including all under it) or null if any could change
+     * @param group Changed group (or one added to/removed from user) or null if it wasn't change of a group
+     */
+    void onPermissionChange(@Nullable UUID uuid, @Nullable String permission, @Nullable String group);
+
+    /**
+     * Registers listener of permission changes
+     *
+     * @param listener Listener
+     */
+    static void register(PermissionChangeEvent listener) {
+        PermissionsImpl.registerChangeListener(listener);
+    }
+
+    /**
+     * Fires event, calling all registered listeners
+     *
+     * @param uuid UUID of affected user or null if it could affect all of them
+     * @param permission Changed permission (including all under it) or null if any could change
+     * @param group Changed group or null if it wasn't change of a group
+     */
+    static void fire(@Nullable UUID uuid, @Nullable String permission, @Nullable String group) {
+        PermissionsImpl.fireChange(uuid, permission, group);
+    }
+
+    /**
+     * Fires event for all users and permissions, for example after reload
+     */
+    static void fireAll() {
+        fire(null, null, null);
+    }
+
+    /**
+     * Fires event for any permission of single user
+     *
+     * @param uuid UUID of affected user
+     */
+    static void fireUser(UUID uuid) {
+        fire(uuid, null, null);
+    }
+}
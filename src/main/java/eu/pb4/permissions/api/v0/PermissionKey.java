@@ -0,0 +1,106 @@
+package eu.pb4.permissions.api.v0;
+
+import eu.pb4.permissions.impl.PermissionSegments;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-parsed and interned permission. It's split into segments once, so providers
+ * supporting it can resolve it without parsing permission string again.
+ * Keys should be created once and stored (for example in static final fields),
+ * as every created key is kept for the whole runtime.
+ */
+@SuppressWarnings({"unused"})
+public final class PermissionKey {
+    private static final Map<String, PermissionKey> KEYS = new ConcurrentHashMap<>();
+
+    private final String permission;
+    private final String[] segments;
+    private final int[] segmentIds;
+    private final boolean wildcard;
+    private final boolean anyChild;
+    private volatile int nodeId = -1;
+
+    private PermissionKey(String permission) {
+        this.permission = permission;
+        this.segments = permission.split("\\.", -1);
+        this.segmentIds = new int[this.segments.length];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = this.segments[i].intern();
+            this.segmentIds[i] = PermissionSegments.intern(this.segments[i]);
+        }
+        String last = this.segments[this.segments.length - 1];
+        this.wildcard = last.equals("*");
+        this.anyChild = this.segments.length > 1 && last.equals("?");
+    }
+
+    /**
+     * Returns interned key of permission
+     *
+     * @param permission String of permission
+     * @return PermissionKey
+     */
+    public static PermissionKey of(String permission) {
+        PermissionKey key = KEYS.get(permission);
+        return key != null ? key : KEYS.computeIfAbsent(permission, PermissionKey::new);
+    }
+
+    /**
+     * Returns string of permission
+     */
+    public String getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Returns amount of segments (parts separated by a dot) in permission
+     */
+    public int getSegmentCount() {
+        return this.segments.length;
+    }
+
+    /**
+     * Returns segment at index
+     */
+    public String getSegment(int index) {
+        return this.segments[index];
+    }
+
+    /**
+     * Returns id of segment at index
+     */
+    public int getSegmentId(int index) {
+        return this.segmentIds[index];
+    }
+
+    /**
+     * Returns true, if permission ends with a wildcard (.*)
+     */
+    public boolean isWildcard() {
+        return this.wildcard;
+    }
+
+    /**
+     * Returns true, if permission ends with ".?", checking for any child permission
+     */
+    public boolean isAnyChild() {
+        return this.anyChild;
+    }
+
+    /**
+     * Returns id of permission in PermissionRegistry or -1 if it wasn't registered
+     */
+    public int getNodeId() {
+        return this.nodeId;
+    }
+
+    void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String toString() {
+        return this.permission;
+    }
+}
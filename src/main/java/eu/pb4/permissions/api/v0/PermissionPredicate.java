@@ -0,0 +1,97 @@
+package eu.pb4.permissions.api.v0;
+
+import eu.pb4.permissions.impl.CommandTreeMemo;
+import eu.pb4.permissions.impl.CommandTreeUpdater;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.function.Predicate;
+
+/**
+ * Predicate created by Permissions.require(...), checking permission of command source.
+ * While command tree is sent to a player, results of the same permission are shared
+ * between all nodes requiring it.
+ */
+@SuppressWarnings({"unused"})
+public final class PermissionPredicate implements Predicate<ServerCommandSource> {
+    private final PermissionKey permission;
+    private final int defaultRequiredLevel;
+    private final boolean playerByDefault;
+    private final boolean consoleByDefault;
+
+    private PermissionPredicate(String permission, int defaultRequiredLevel, boolean playerByDefault, boolean consoleByDefault) {
+        this.permission = PermissionKey.of(permission);
+        this.defaultRequiredLevel = defaultRequiredLevel;
+        this.playerByDefault = playerByDefault;
+        this.consoleByDefault = consoleByDefault;
+        CommandTreeUpdater.addGuardedPermission(permission);
+    }
+
+    /**
+     * Creates a predicate, which falls back to operator level
+     *
+     * @param permission           Required permission
+     * @param defaultRequiredLevel Otherwise required operator level
+     * @return PermissionPredicate
+     */
+    public static PermissionPredicate of(String permission, int defaultRequiredLevel) {
+        return new PermissionPredicate(permission, defaultRequiredLevel, false, false);
+    }
+
+    /**
+     * Creates a predicate, which falls back to default values
+     *
+     * @param permission       Required permission
+     * @param playerByDefault  If player should be allowed by default
+     * @param consoleByDefault If console (and other non players) should be allowed
+     * @return PermissionPredicate
+     */
+    public static PermissionPredicate of(String permission, boolean playerByDefault, boolean consoleByDefault) {
+        return new PermissionPredicate(permission, -1, playerByDefault, consoleByDefault);
+    }
+
+    /**
+     * Returns required permission
+     */
+    public PermissionKey getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Returns operator level required if permission isn't set, or -1 if default values are used instead
+     */
+    public int getDefaultRequiredLevel() {
+        return this.defaultRequiredLevel;
+    }
+
+    /**
+     * Returns if player is allowed if permission isn't set. Used only without required level
+     */
+    public boolean isPlayerByDefault() {
+        return this.playerByDefault;
+    }
+
+    /**
+     * Returns if console and other non player sources are allowed. Used only without required level
+     */
+    public boolean isConsoleByDefault() {
+        return this.consoleByDefault;
+    }
+
+    @Override
+    public boolean test(ServerCommandSource source) {
+        if (source.getEntity() instanceof ServerPlayerEntity player) {
+            try {
+                return CommandTreeMemo.check(player, this.permission).toBoolean(this.defaultRequiredLevel != -1 ? source.hasPermissionLevel(this.defaultRequiredLevel) : this.playerByDefault);
+            } catch (Exception e) {
+                // Fallback to default below
+            }
+        }
+        return this.defaultRequiredLevel != -1 ? source.hasPermissionLevel(this.defaultRequiredLevel) : this.consoleByDefault;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionPredicate[" + this.permission.getPermission() + "]";
+    }
+}
@@ -1,29 +1,45 @@
 package eu.pb4.permissions.api.v0;
 
 
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Provider of permissions, groups and their values.
+ * Implementations need to be thread safe, as checks can be made from any thread
+ * (networking, async chat or worker threads of other mods), not only from server one.
+ * Reading permissions shouldn't block while they are being reloaded or modified.
+ */
 @SuppressWarnings({"unused"})
 public interface PermissionProvider {
+    /**
+     * Runs synchronous lookup, returning its result (or thrown exception) as completed future
+     */
+    private static <T> CompletableFuture<T> completeWith(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     static <V> V getValueFrom(List<String> permissions, V defaultValue, ValueAdapter<V> adapter) {
-        List<V> list = new ArrayList<>();
-        list.add(defaultValue);
+        V value = defaultValue;
         for (String s : permissions) {
-            V val = adapter.create(s);
-            if (val != null) {
-                list.add(val);
-            }
+            value = adapter.reduce(value, s);
         }
-        list.sort(adapter::sort);
-
-        return list.get(0);
+        return value;
     }
 
     /**
@@ -121,6 +137,149 @@ public interface PermissionProvider {
         return check(user, permission).toBoolean(defaultValue);
     }
 
+    /**
+     * Checks value of player's permission, using pre-parsed PermissionKey
+     * Works the same way as check with permission string, however providers can
+     * resolve it without parsing permission again
+     *
+     * @param user       Player's UserContext
+     * @param permission PermissionKey of permission
+     * @return Corresponding PermissionValue
+     */
+    default PermissionValue check(UserContext user, PermissionKey permission) {
+        return check(user, permission.getPermission());
+    }
+
+    /**
+     * Checks value of player's permission, using pre-parsed PermissionKey
+     *
+     * @param user         Player's UserContext
+     * @param permission   PermissionKey of permission
+     * @param defaultLevel Default otherwise required OP level
+     * @return Corresponding PermissionValue
+     */
+    default boolean check(UserContext user, PermissionKey permission, int defaultLevel) {
+        return check(user, permission).toBoolean(user.getPermissionLevel() >= defaultLevel);
+    }
+
+    /**
+     * Checks value of player's permission, using pre-parsed PermissionKey
+     *
+     * @param user         Player's UserContext
+     * @param permission   PermissionKey of permission
+     * @param defaultValue If should be allowed by default
+     * @return Corresponding PermissionValue
+     */
+    default boolean check(UserContext user, PermissionKey permission, boolean defaultValue) {
+        return check(user, permission).toBoolean(defaultValue);
+    }
+
+    /**
+     * Checks values of multiple player's permissions at once
+     * Works the same way as checking every permission separately, however providers can
+     * resolve user and its data only once for all of them
+     *
+     * @param user        Player's UserContext
+     * @param permissions Collection of permission strings
+     * @return Map of permissions with corresponding PermissionValues
+     */
+    default Map<String, PermissionValue> checkAll(UserContext user, Collection<String> permissions) {
+        Map<String, PermissionValue> map = new Object2ObjectOpenHashMap<>(permissions.size());
+        for (String permission : permissions) {
+            map.put(permission, this.check(user, permission));
+        }
+        return map;
+    }
+
+    /**
+     * Checks value of permission for multiple players at once
+     * Works the same way as checking every player separately, however providers can
+     * resolve permission only once for all of them
+     *
+     * @param users      Collection of players' UserContexts
+     * @param permission String of permission
+     * @return Map of UserContexts with corresponding PermissionValues
+     */
+    default Map<UserContext, PermissionValue> checkMany(Collection<UserContext> users, String permission) {
+        Map<UserContext, PermissionValue> map = new Object2ObjectOpenHashMap<>(users.size());
+        for (UserContext user : users) {
+            map.put(user, this.check(user, permission));
+        }
+        return map;
+    }
+
+    /**
+     * Returns players, which have permission with value of PermissionValue.TRUE
+     *
+     * @param players    Players to filter
+     * @param permission String of permission
+     * @return List of players with permission
+     */
+    default List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission) {
+        return this.filter(players, permission, false);
+    }
+
+    /**
+     * Returns players, which have permission
+     *
+     * @param players      Players to filter
+     * @param permission   String of permission
+     * @param defaultValue If should be allowed by default
+     * @return List of players with permission
+     */
+    default List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission, boolean defaultValue) {
+        return this.filter(players, permission, defaultValue ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns players, which have permission
+     *
+     * @param players      Players to filter
+     * @param permission   String of permission
+     * @param defaultLevel Default otherwise required OP level
+     * @return List of players with permission
+     */
+    default List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission, int defaultLevel) {
+        List<ServerPlayerEntity> list = new ArrayList<>();
+        for (ServerPlayerEntity player : players) {
+            if (this.check(UserContext.of(player), permission, defaultLevel)) {
+                list.add(player);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Checks if player has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @return Corresponding PermissionValue
+     */
+    default PermissionValue hasAnyUnder(UserContext user, String parentPermission) {
+        return this.hasAnyUnder(user, parentPermission, user.getWorld());
+    }
+
+    /**
+     * Checks if player has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @param world            World for check (global and local permissions) or null (for global only)
+     * @return Corresponding PermissionValue
+     */
+    default PermissionValue hasAnyUnder(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        // Negated permissions are only listed if there isn't any true one
+        if (!this.getList(user, parentPermission, world, PermissionValue.TRUE).isEmpty()) {
+            return PermissionValue.TRUE;
+        }
+        return this.getList(user, parentPermission, world, PermissionValue.FALSE).isEmpty() ? PermissionValue.DEFAULT : PermissionValue.FALSE;
+    }
+
     /**
      * Gets list of all permissions of player with value of PermissionValue.TRUE
      * Ordered from most to least significant
@@ -225,6 +384,34 @@ public interface PermissionProvider {
      */
     List<String> getList(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value);
 
+    /**
+     * Gets list of permissions registered in PermissionRegistry, which are child of specified permission
+     * and resolve to provided value for player (including wildcards and inherited ones).
+     * Returned permissions have their parent string removed.
+     * In case of PlaceholderValue.DEFAULT it returns all, which resolve to non default value
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @return List of permissions
+     */
+    default List<String> getListRegistered(UserContext user, String parentPermission, PermissionValue value) {
+        long[] nodes = PermissionRegistry.getNodesUnder(parentPermission);
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            long word = nodes[i];
+            while (word != 0) {
+                PermissionKey key = PermissionRegistry.getNode((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+
+                PermissionValue result = this.check(user, key);
+                if (value == PermissionValue.DEFAULT ? result != PermissionValue.DEFAULT : result == value) {
+                    list.add(key.getPermission().substring(parentPermission.length() + 1));
+                }
+            }
+        }
+        return list;
+    }
+
     /**
      * Gets List of permissions of player, that aren't inherited from groups
      * and have value of PermissionValue.TRUE
@@ -441,7 +628,7 @@ public interface PermissionProvider {
      * @return Highest value;
      */
     default <V> V getAsValue(UserContext user, String permission, V defaultValue, ValueAdapter<V> adapter) {
-        return getValueFrom(this.getList(user, permission, user.getWorld()), defaultValue, adapter);
+        return this.getAsValue(user, permission, user.getWorld(), defaultValue, adapter);
     }
 
     /**
@@ -472,7 +659,7 @@ public interface PermissionProvider {
      * @return Highest value;
      */
     default <V> V getAsValueNonInherited(UserContext user, String permission, V defaultValue, ValueAdapter<V> adapter) {
-        return getValueFrom(this.getListNonInherited(user, permission, user.getWorld()), defaultValue, adapter);
+        return this.getAsValueNonInherited(user, permission, user.getWorld(), defaultValue, adapter);
     }
 
     /**
@@ -491,6 +678,105 @@ public interface PermissionProvider {
         return getValueFrom(this.getListNonInherited(user, permission, world), defaultValue, adapter);
     }
 
+    /**
+     * This methods tries to read permission as int value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    default int getAsInt(UserContext user, String permission, int defaultValue, ValueOrder order) {
+        return this.getAsInt(user, permission, user.getWorld(), defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as int value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    default int getAsInt(UserContext user, String permission, @Nullable ServerWorld world, int defaultValue, ValueOrder order) {
+        return order.select(this.getList(user, permission, world), defaultValue);
+    }
+
+    /**
+     * This methods tries to read permission as long value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    default long getAsLong(UserContext user, String permission, long defaultValue, ValueOrder order) {
+        return this.getAsLong(user, permission, user.getWorld(), defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as long value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    default long getAsLong(UserContext user, String permission, @Nullable ServerWorld world, long defaultValue, ValueOrder order) {
+        return order.select(this.getList(user, permission, world), defaultValue);
+    }
+
+    /**
+     * This methods tries to read permission as double value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    default double getAsDouble(UserContext user, String permission, double defaultValue, ValueOrder order) {
+        return this.getAsDouble(user, permission, user.getWorld(), defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as double value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    default double getAsDouble(UserContext user, String permission, @Nullable ServerWorld world, double defaultValue, ValueOrder order) {
+        return order.select(this.getList(user, permission, world), defaultValue);
+    }
+
     /**
      * Sets value of player's placeholder to provided one
      * In case of PlaceholderValue.DEFAULT, it gets removed from player
@@ -558,6 +844,102 @@ public interface PermissionProvider {
      */
     List<String> getGroups(UserContext user, @Nullable ServerWorld world);
 
+    /**
+     * Checks value of player's permission asynchronously
+     * Providers loading users from storage can do it without blocking current thread
+     *
+     * @param user       Player's UserContext
+     * @param permission String of permission
+     * @return Future of corresponding PermissionValue
+     */
+    default CompletableFuture<PermissionValue> checkAsync(UserContext user, String permission) {
+        return completeWith(() -> this.check(user, permission));
+    }
+
+    /**
+     * Checks values of multiple player's permissions asynchronously
+     *
+     * @param user        Player's UserContext
+     * @param permissions Collection of permission strings
+     * @return Future of map of permissions with corresponding PermissionValues
+     */
+    default CompletableFuture<Map<String, PermissionValue>> checkAllAsync(UserContext user, Collection<String> permissions) {
+        return completeWith(() -> this.checkAll(user, permissions));
+    }
+
+    /**
+     * Gets list of all permissions of player with matching value asynchronously
+     *
+     * @param user  Player's UserContext
+     * @param world World for check (returns global and local permissions) or null (for global only)
+     * @param value Required value
+     * @return Future of list of permissions
+     */
+    default CompletableFuture<List<String>> getListAsync(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return completeWith(() -> this.getList(user, world, value));
+    }
+
+    /**
+     * Gets list of all child permissions of parent permission with matching value asynchronously
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @param world            World for check (returns global and local permissions) or null (for global only)
+     * @param value            Required value
+     * @return Future of list of permissions
+     */
+    default CompletableFuture<List<String>> getListAsync(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return completeWith(() -> this.getList(user, parentPermission, world, value));
+    }
+
+    /**
+     * Gets map of all permissions of player asynchronously
+     *
+     * @param user  Player's UserContext
+     * @param world World for check (returns global and local permissions) or null (for global only)
+     * @return Future of map of permissions
+     */
+    default CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, @Nullable ServerWorld world) {
+        return completeWith(() -> this.getAll(user, world));
+    }
+
+    /**
+     * Gets map of all child permissions of parent permission asynchronously
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @param world            World for check (returns global and local permissions) or null (for global only)
+     * @return Future of map of permissions
+     */
+    default CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return completeWith(() -> this.getAll(user, parentPermission, world));
+    }
+
+    /**
+     * Gets list of player's groups asynchronously
+     *
+     * @param user  Player's UserContext
+     * @param world World for check (returns global and local groups) or null (for global only)
+     * @return Future of list of groups
+     */
+    default CompletableFuture<List<String>> getGroupsAsync(UserContext user, @Nullable ServerWorld world) {
+        return completeWith(() -> this.getGroups(user, world));
+    }
+
+    /**
+     * Reads permission as value with usage of provided adapter asynchronously
+     *
+     * @param user         Player's UserContext
+     * @param permission   Parent permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value
+     * @param adapter      Value adapter
+     * @return Future of highest value
+     */
+    default <V> CompletableFuture<V> getAsValueAsync(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return completeWith(() -> this.getAsValue(user, permission, world, defaultValue, adapter));
+    }
+
     /**
      * Adds user to group
      *
@@ -644,6 +1026,37 @@ public interface PermissionProvider {
      */
     PermissionValue checkGroup(String group, @Nullable ServerWorld world, String permission);
 
+    /**
+     * Checks if group has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param group            Group's name
+     * @param parentPermission Parent permission
+     * @return Corresponding PermissionValue
+     */
+    default PermissionValue hasAnyUnderGroup(String group, String parentPermission) {
+        return this.hasAnyUnderGroup(group, parentPermission, null);
+    }
+
+    /**
+     * Checks if group has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param group            Group's name
+     * @param parentPermission Parent permission
+     * @param world            Current world (global and local permissions) or null (for global only)
+     * @return Corresponding PermissionValue
+     */
+    default PermissionValue hasAnyUnderGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        // Negated permissions are only listed if there isn't any true one
+        if (!this.getListGroup(group, parentPermission, world, PermissionValue.TRUE).isEmpty()) {
+            return PermissionValue.TRUE;
+        }
+        return this.getListGroup(group, parentPermission, world, PermissionValue.FALSE).isEmpty() ? PermissionValue.DEFAULT : PermissionValue.FALSE;
+    }
+
     /**
      * Gets list of all permissions of group with PermissionValue.TRUE
      * Ordered from most to least significant
@@ -966,7 +1379,7 @@ public interface PermissionProvider {
      * @return Highest value;
      */
     default <V> V getAsValueGroup(String group, String permission, V defaultValue, ValueAdapter<V> adapter) {
-        return getValueFrom(this.getListGroup(group, permission, (ServerWorld) null), defaultValue, adapter);
+        return this.getAsValueGroup(group, permission, null, defaultValue, adapter);
     }
 
     /**
@@ -997,7 +1410,7 @@ public interface PermissionProvider {
      * @return Highest value;
      */
     default <V> V getAsValueNonInheritedGroup(String group, String permission, V defaultValue, ValueAdapter<V> adapter) {
-        return getValueFrom(this.getListNonInheritedGroup(group, permission, (ServerWorld) null), defaultValue, adapter);
+        return this.getAsValueNonInheritedGroup(group, permission, null, defaultValue, adapter);
     }
 
     /**
@@ -0,0 +1,128 @@
+package eu.pb4.permissions.api.v0;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of permissions known up front, for example ones declared by mods during initialization.
+ * Every registered permission gets dense, unique id (starting at 0), which allows providers
+ * to store resolved values of all of them in bitsets instead of resolving them on every check.
+ * Only exact permissions can be registered, without wildcards (.*) or any child checks (.?).
+ */
+@SuppressWarnings({"unused"})
+public final class PermissionRegistry {
+    private static final long[] EMPTY = new long[0];
+    // Parents of registered permissions. Masks are cached only for them, so the cache can't grow with arbitrary parents
+    private static final Set<String> PARENTS = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Mask> MASKS = new ConcurrentHashMap<>();
+    private static volatile PermissionKey[] nodes = new PermissionKey[64];
+    // Written after nodes, so readers always see all nodes below it
+    private static volatile int nodeCount = 0;
+
+    private PermissionRegistry() {
+    }
+
+    /**
+     * Registers permission, assigning id to it. Registering the same permission again returns the same key
+     *
+     * @param permission String of permission
+     * @return PermissionKey of permission, with assigned node id
+     */
+    public static synchronized PermissionKey register(String permission) {
+        PermissionKey key = PermissionKey.of(permission);
+        if (key.getNodeId() != -1) {
+            return key;
+        } else if (key.isWildcard() || key.isAnyChild()) {
+            throw new IllegalArgumentException("Only exact permissions can be registered, got " + permission);
+        }
+
+        int id = nodeCount;
+        PermissionKey[] nodes = PermissionRegistry.nodes;
+        if (id == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            PermissionRegistry.nodes = nodes;
+        }
+        nodes[id] = key;
+        key.setNodeId(id);
+        for (int i = permission.indexOf('.'); i != -1; i = permission.indexOf('.', i + 1)) {
+            PARENTS.add(permission.substring(0, i));
+        }
+        nodeCount = id + 1;
+        return key;
+    }
+
+    /**
+     * Registers multiple permissions
+     *
+     * @param permissions Strings of permissions
+     */
+    public static void register(String... permissions) {
+        for (String permission : permissions) {
+            register(permission);
+        }
+    }
+
+    /**
+     * Returns amount of registered permissions. Ids of all of them are lower than it
+     */
+    public static int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns registered permission with id
+     *
+     * @param id Id of permission
+     * @return PermissionKey
+     */
+    public static PermissionKey getNode(int id) {
+        if (id < 0 || id >= nodeCount) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        return nodes[id];
+    }
+
+    /**
+     * Returns bitset of ids of registered permissions under parent one (with "parent." prefix).
+     * Returned array shouldn't be modified
+     *
+     * @param parentPermission Parent permission
+     * @return Bitset as long array, covering all ids up to current node count (empty if nothing is registered under parent)
+     */
+    public static long[] getNodesUnder(String parentPermission) {
+        if (!PARENTS.contains(parentPermission)) {
+            return EMPTY;
+        }
+
+        int count = nodeCount;
+        Mask cached = MASKS.get(parentPermission);
+        if (cached != null && cached.nodeCount() == count) {
+            return cached.bits();
+        }
+
+        PermissionKey[] nodes = PermissionRegistry.nodes;
+        long[] mask = new long[getWordCount(count)];
+        int length = parentPermission.length();
+        for (int i = 0; i < count; i++) {
+            String permission = nodes[i].getPermission();
+            if (permission.length() > length + 1 && permission.charAt(length) == '.' && permission.startsWith(parentPermission)) {
+                mask[i >>> 6] |= 1L << i;
+            }
+        }
+
+        MASKS.put(parentPermission, new Mask(count, mask));
+        return mask;
+    }
+
+    /**
+     * Returns amount of longs needed to store bitset of given size
+     */
+    public static int getWordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    private record Mask(int nodeCount, long[] bits) {
+    }
+}
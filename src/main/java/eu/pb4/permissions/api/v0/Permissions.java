@@ -7,8 +7,10 @@ import net.minecraft.server.world.ServerWorld;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 
 @SuppressWarnings({"null", "unused"})
@@ -33,46 +35,33 @@ public class Permissions {
     /**
      * Creates a predicate, which returns the result of permission check,
      * Falling back to operator level one.
+     * Returned predicate is a PermissionPredicate.
      *
      * @param permission           Required permission
      * @param defaultRequiredLevel Otherwise required operator level
      * @return Boolean indication if user have permission
      */
     public static Predicate<ServerCommandSource> require(String permission, int defaultRequiredLevel) {
-        return source -> {
-            try {
-                ServerPlayerEntity player = source.getPlayer();
-
-                return get().check(UserContext.of(player), permission).toBoolean(source.hasPermissionLevel(defaultRequiredLevel));
-            } catch (Exception e) {
-                return source.hasPermissionLevel(defaultRequiredLevel);
-            }
-        };
+        return PermissionPredicate.of(permission, defaultRequiredLevel);
     }
 
     /**
      * Creates a predicate, which returns the result of permission check,
      * Falling back to operator level one.
+     * Returned predicate is a PermissionPredicate.
      *
      * @param permission      Required permission
      * @param playerByDefault If player should be allowed by default
      * @return Boolean indication if user have permission
      */
     public static Predicate<ServerCommandSource> require(String permission, boolean playerByDefault, boolean consoleByDefault) {
-        return source -> {
-            try {
-                ServerPlayerEntity player = source.getPlayer();
-
-                return get().check(UserContext.of(player), permission).toBoolean(playerByDefault);
-            } catch (Exception e) {
-                return consoleByDefault;
-            }
-        };
+        return PermissionPredicate.of(permission, playerByDefault, consoleByDefault);
     }
 
     /**
      * Creates a predicate, which returns the result of permission check,
      * And default value
+     * Returned predicate is a PermissionPredicate.
      *
      * @param permission      Required permission
      * @param playerByDefault If player should be allowed by default
@@ -82,7 +71,6 @@ public class Permissions {
         return require(permission, playerByDefault, true);
     }
 
-
     // Redirects start here!
 
     /**
@@ -195,6 +183,131 @@ public class Permissions {
         return get().check(user, permission, defaultValue);
     }
 
+    /**
+     * Checks value of player's permission, using pre-parsed PermissionKey
+     * Works the same way as check with permission string, however providers can
+     * resolve it without parsing permission again
+     *
+     * @param user       Player's UserContext
+     * @param permission PermissionKey of permission
+     * @return Corresponding PermissionValue
+     */
+    public static PermissionValue check(UserContext user, PermissionKey permission) {
+        return get().check(user, permission);
+    }
+
+    /**
+     * Checks value of player's permission, using pre-parsed PermissionKey
+     *
+     * @param user         Player's UserContext
+     * @param permission   PermissionKey of permission
+     * @param defaultLevel Default otherwise required OP level
+     * @return Corresponding PermissionValue
+     */
+    public static boolean check(UserContext user, PermissionKey permission, int defaultLevel) {
+        return get().check(user, permission, defaultLevel);
+    }
+
+    /**
+     * Checks value of player's permission, using pre-parsed PermissionKey
+     *
+     * @param user         Player's UserContext
+     * @param permission   PermissionKey of permission
+     * @param defaultValue If should be allowed by default
+     * @return Corresponding PermissionValue
+     */
+    public static boolean check(UserContext user, PermissionKey permission, boolean defaultValue) {
+        return get().check(user, permission, defaultValue);
+    }
+
+    /**
+     * Checks values of multiple player's permissions at once
+     * Works the same way as checking every permission separately, however providers can
+     * resolve user and its data only once for all of them
+     *
+     * @param user        Player's UserContext
+     * @param permissions Collection of permission strings
+     * @return Map of permissions with corresponding PermissionValues
+     */
+    public static Map<String, PermissionValue> checkAll(UserContext user, Collection<String> permissions) {
+        return get().checkAll(user, permissions);
+    }
+
+    /**
+     * Checks value of permission for multiple players at once
+     * Works the same way as checking every player separately, however providers can
+     * resolve permission only once for all of them
+     *
+     * @param users      Collection of players' UserContexts
+     * @param permission String of permission
+     * @return Map of UserContexts with corresponding PermissionValues
+     */
+    public static Map<UserContext, PermissionValue> checkMany(Collection<UserContext> users, String permission) {
+        return get().checkMany(users, permission);
+    }
+
+    /**
+     * Returns players, which have permission with value of PermissionValue.TRUE
+     *
+     * @param players    Players to filter
+     * @param permission String of permission
+     * @return List of players with permission
+     */
+    public static List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission) {
+        return get().filter(players, permission);
+    }
+
+    /**
+     * Returns players, which have permission
+     *
+     * @param players      Players to filter
+     * @param permission   String of permission
+     * @param defaultValue If should be allowed by default
+     * @return List of players with permission
+     */
+    public static List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission, boolean defaultValue) {
+        return get().filter(players, permission, defaultValue);
+    }
+
+    /**
+     * Returns players, which have permission
+     *
+     * @param players      Players to filter
+     * @param permission   String of permission
+     * @param defaultLevel Default otherwise required OP level
+     * @return List of players with permission
+     */
+    public static List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission, int defaultLevel) {
+        return get().filter(players, permission, defaultLevel);
+    }
+
+    /**
+     * Checks if player has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @return Corresponding PermissionValue
+     */
+    public static PermissionValue hasAnyUnder(UserContext user, String parentPermission) {
+        return get().hasAnyUnder(user, parentPermission);
+    }
+
+    /**
+     * Checks if player has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @param world            World for check (global and local permissions) or null (for global only)
+     * @return Corresponding PermissionValue
+     */
+    public static PermissionValue hasAnyUnder(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return get().hasAnyUnder(user, parentPermission, world);
+    }
+
     /**
      * Gets list of all permissions of player with value of PermissionValue.TRUE
      * Ordered from most to least significant
@@ -303,6 +416,20 @@ public class Permissions {
         return get().getList(user, parentPermission, world, value);
     }
 
+    /**
+     * Gets list of permissions registered in PermissionRegistry, which are child of specified permission
+     * and resolve to provided value for player (including wildcards and inherited ones).
+     * Returned permissions have their parent string removed.
+     * In case of PlaceholderValue.DEFAULT it returns all, which resolve to non default value
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @return List of permissions
+     */
+    public static List<String> getListRegistered(UserContext user, String parentPermission, PermissionValue value) {
+        return get().getListRegistered(user, parentPermission, value);
+    }
+
     /**
      * Gets List of permissions of player, that aren't inherited from groups
      * and have value of PermissionValue.TRUE
@@ -581,6 +708,105 @@ public class Permissions {
         return get().getAsValueNonInherited(user, permission, world, defaultValue, adapter);
     }
 
+    /**
+     * This methods tries to read permission as int value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    public static int getAsInt(UserContext user, String permission, int defaultValue, ValueOrder order) {
+        return get().getAsInt(user, permission, defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as int value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    public static int getAsInt(UserContext user, String permission, @Nullable ServerWorld world, int defaultValue, ValueOrder order) {
+        return get().getAsInt(user, permission, world, defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as long value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    public static long getAsLong(UserContext user, String permission, long defaultValue, ValueOrder order) {
+        return get().getAsLong(user, permission, defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as long value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    public static long getAsLong(UserContext user, String permission, @Nullable ServerWorld world, long defaultValue, ValueOrder order) {
+        return get().getAsLong(user, permission, world, defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as double value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    public static double getAsDouble(UserContext user, String permission, double defaultValue, ValueOrder order) {
+        return get().getAsDouble(user, permission, defaultValue, order);
+    }
+
+    /**
+     * This methods tries to read permission as double value, picking one according to provided order.
+     * Value permission needs to be set to PermissionValue.TRUE and have format of
+     * `permission.value`. Unlike getAsValue, it doesn't box or sort read values.
+     * Default value is returned only if no valid value is set, without being compared with them
+     *
+     * @param user         User permission is checked for
+     * @param permission   Base permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value if none is set
+     * @param order        Order picking most significant value
+     * @return Most significant value
+     */
+    public static double getAsDouble(UserContext user, String permission, @Nullable ServerWorld world, double defaultValue, ValueOrder order) {
+        return get().getAsDouble(user, permission, world, defaultValue, order);
+    }
+
     /**
      * Sets value of player's placeholder to provided one
      * In case of PlaceholderValue.DEFAULT, it gets removed from player
@@ -627,6 +853,102 @@ public class Permissions {
         return get().getGroups(user, world);
     }
 
+    /**
+     * Checks value of player's permission asynchronously
+     * Providers loading users from storage can do it without blocking current thread
+     *
+     * @param user       Player's UserContext
+     * @param permission String of permission
+     * @return Future of corresponding PermissionValue
+     */
+    public static CompletableFuture<PermissionValue> checkAsync(UserContext user, String permission) {
+        return get().checkAsync(user, permission);
+    }
+
+    /**
+     * Checks values of multiple player's permissions asynchronously
+     *
+     * @param user        Player's UserContext
+     * @param permissions Collection of permission strings
+     * @return Future of map of permissions with corresponding PermissionValues
+     */
+    public static CompletableFuture<Map<String, PermissionValue>> checkAllAsync(UserContext user, Collection<String> permissions) {
+        return get().checkAllAsync(user, permissions);
+    }
+
+    /**
+     * Gets list of all permissions of player with matching value asynchronously
+     *
+     * @param user  Player's UserContext
+     * @param world World for check (returns global and local permissions) or null (for global only)
+     * @param value Required value
+     * @return Future of list of permissions
+     */
+    public static CompletableFuture<List<String>> getListAsync(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return get().getListAsync(user, world, value);
+    }
+
+    /**
+     * Gets list of all child permissions of parent permission with matching value asynchronously
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @param world            World for check (returns global and local permissions) or null (for global only)
+     * @param value            Required value
+     * @return Future of list of permissions
+     */
+    public static CompletableFuture<List<String>> getListAsync(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return get().getListAsync(user, parentPermission, world, value);
+    }
+
+    /**
+     * Gets map of all permissions of player asynchronously
+     *
+     * @param user  Player's UserContext
+     * @param world World for check (returns global and local permissions) or null (for global only)
+     * @return Future of map of permissions
+     */
+    public static CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, @Nullable ServerWorld world) {
+        return get().getAllAsync(user, world);
+    }
+
+    /**
+     * Gets map of all child permissions of parent permission asynchronously
+     *
+     * @param user             Player's UserContext
+     * @param parentPermission Parent permission
+     * @param world            World for check (returns global and local permissions) or null (for global only)
+     * @return Future of map of permissions
+     */
+    public static CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return get().getAllAsync(user, parentPermission, world);
+    }
+
+    /**
+     * Gets list of player's groups asynchronously
+     *
+     * @param user  Player's UserContext
+     * @param world World for check (returns global and local groups) or null (for global only)
+     * @return Future of list of groups
+     */
+    public static CompletableFuture<List<String>> getGroupsAsync(UserContext user, @Nullable ServerWorld world) {
+        return get().getGroupsAsync(user, world);
+    }
+
+    /**
+     * Reads permission as value with usage of provided adapter asynchronously
+     *
+     * @param user         Player's UserContext
+     * @param permission   Parent permission
+     * @param world        World for check (returns global and local permissions) or null (for global only)
+     * @param defaultValue Default value
+     * @param adapter      Value adapter
+     * @return Future of highest value
+     */
+    public static <V> CompletableFuture<V> getAsValueAsync(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return get().getAsValueAsync(user, permission, world, defaultValue, adapter);
+    }
+
     /**
      * Adds user to group
      *
@@ -1094,6 +1416,33 @@ public class Permissions {
         return get().checkGroup(group, world, permission);
     }
 
+    /**
+     * Checks if group has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param group            Group's name
+     * @param parentPermission Parent permission
+     * @return Corresponding PermissionValue
+     */
+    public static PermissionValue hasAnyUnderGroup(String group, String parentPermission) {
+        return get().hasAnyUnderGroup(group, parentPermission);
+    }
+
+    /**
+     * Checks if group has any child permission of parent permission
+     * It's used for resolving ".?" checks. Returns PermissionValue.TRUE when any of child permission is true,
+     * PermissionValue.DEFAULT when none exist or PermissionValue.FALSE when all of them are negated
+     *
+     * @param group            Group's name
+     * @param parentPermission Parent permission
+     * @param world            Current world (global and local permissions) or null (for global only)
+     * @return Corresponding PermissionValue
+     */
+    public static PermissionValue hasAnyUnderGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        return get().hasAnyUnderGroup(group, parentPermission, world);
+    }
+
     /**
      * Gets List of all permissions of group with specific value
      * In case of PlaceholderValue.DEFAULT it returns ignores value and returns all
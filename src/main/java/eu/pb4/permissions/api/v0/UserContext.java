@@ -2,9 +2,8 @@ package eu.pb4.permissions.api.v0;
 
 import com.mojang.authlib.GameProfile;
 import eu.pb4.permissions.impl.context.CommandSourceUserContext;
-import eu.pb4.permissions.impl.context.EntityUserContext;
 import eu.pb4.permissions.impl.context.GameProfileUserContext;
-import eu.pb4.permissions.impl.context.PlayerUserContext;
+import eu.pb4.permissions.impl.context.UserContextHolder;
 import net.minecraft.entity.Entity;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -74,12 +73,13 @@ public interface UserContext {
 
     /**
      * Creates UserContext from player's entity
+     * Returned context is reused for the same player, as long as it stays in the same world
      *
      * @param player ServerPlayerEntity
      * @return UserContext of player
      */
     static UserContext of(ServerPlayerEntity player) {
-        return new PlayerUserContext(player, player.getServerWorld());
+        return ((UserContextHolder) player).permissionsApi_getUserContext(player.getServerWorld());
     }
 
     /**
@@ -90,7 +90,7 @@ public interface UserContext {
      * @return UserContext of player
      */
     static UserContext of(ServerPlayerEntity player, ServerWorld world) {
-        return new PlayerUserContext(player, world);
+        return ((UserContextHolder) player).permissionsApi_getUserContext(world);
     }
 
     /**
@@ -118,15 +118,13 @@ public interface UserContext {
 
     /**
      * Creates UserContext from entity
+     * Returned context is reused for the same entity, as long as it stays in the same world
      *
      * @param entity entity
      * @return UserContext of entity
      */
     static UserContext of(Entity entity) {
-        if (entity instanceof ServerPlayerEntity player) {
-            return new PlayerUserContext(player, player.getServerWorld());
-        }
-        return new EntityUserContext(entity, (ServerWorld) entity.getEntityWorld());
+        return ((UserContextHolder) entity).permissionsApi_getUserContext((ServerWorld) entity.getEntityWorld());
     }
 
     /**
@@ -137,10 +135,7 @@ public interface UserContext {
      * @return UserContext of entity
      */
     static UserContext of(Entity entity, ServerWorld world) {
-        if (entity instanceof ServerPlayerEntity player) {
-            return new PlayerUserContext(player, world);
-        }
-        return new EntityUserContext(entity, world);
+        return ((UserContextHolder) entity).permissionsApi_getUserContext(world);
     }
 
     /**
@@ -150,15 +145,7 @@ public interface UserContext {
      * @return UserContext of source
      */
     static UserContext of(ServerCommandSource source) {
-        try {
-            return new PlayerUserContext(source.getPlayer(), source.getWorld());
-        } catch (Exception e) {
-            try {
-                return new EntityUserContext(source.getEntityOrThrow(), source.getWorld());
-            } catch (Exception e1) {
-                return new CommandSourceUserContext(source, source.getWorld());
-            }
-        }
+        return of(source, source.getWorld());
     }
 
     /**
@@ -169,14 +156,10 @@ public interface UserContext {
      * @return UserContext of source
      */
     static UserContext of(ServerCommandSource source, ServerWorld world) {
-        try {
-            return new PlayerUserContext(source.getPlayer(), world);
-        } catch (Exception e) {
-            try {
-                return new EntityUserContext(source.getEntityOrThrow(), world);
-            } catch (Exception e1) {
-                return new CommandSourceUserContext(source, world);
-            }
+        Entity entity = source.getEntity();
+        if (entity != null) {
+            return ((UserContextHolder) entity).permissionsApi_getUserContext(world);
         }
+        return CommandSourceUserContext.of(source, world);
     }
 }
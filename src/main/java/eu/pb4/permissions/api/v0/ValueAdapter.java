@@ -10,6 +10,19 @@ public interface ValueAdapter<T> {
     int sort(T base, T compared);
     @Nullable T create(String string);
 
+    /**
+     * Returns more significant value out of current and parsed one.
+     * Allows picking the best value in a single pass, without collecting and sorting all of them
+     *
+     * @param current Current value
+     * @param string  String to parse
+     * @return More significant value
+     */
+    default T reduce(T current, String string) {
+        T value = this.create(string);
+        return value != null && (current == null || this.sort(value, current) < 0) ? value : current;
+    }
+
     ValueAdapter<Integer> INTEGER = new ValueAdapter<>() {
         @Override
         public int sort(Integer base, Integer compared) {
@@ -0,0 +1,90 @@
+package eu.pb4.permissions.api.v0;
+
+import eu.pb4.permissions.impl.ValueParsers;
+
+/**
+ * Picks more significant number out of read ones, used by getAsInt, getAsLong and getAsDouble.
+ * Primitive counterpart of ValueAdapter, reading values without boxing
+ */
+public enum ValueOrder {
+    HIGHEST,
+    LOWEST;
+
+    /**
+     * Returns most significant value out of provided strings. Invalid strings are skipped.
+     * Default value isn't compared with them, so for example LOWEST returns set value even if it's higher than default
+     *
+     * @param strings      Strings to parse
+     * @param defaultValue Value returned if none of strings is valid
+     * @return Most significant value or default one
+     */
+    public int select(Iterable<String> strings, int defaultValue) {
+        int value = defaultValue;
+        boolean found = false;
+        for (String string : strings) {
+            int parsed = ValueParsers.parseInt(string, value);
+            // Fallback is returned for invalid strings, so it's checked again with different one
+            if (parsed == value && ValueParsers.parseInt(string, ~value) != value) {
+                continue;
+            }
+            if (!found || this.isMoreSignificant(Integer.compare(parsed, value))) {
+                value = parsed;
+                found = true;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns most significant value out of provided strings. Invalid strings are skipped.
+     * Default value isn't compared with them, so for example LOWEST returns set value even if it's higher than default
+     *
+     * @param strings      Strings to parse
+     * @param defaultValue Value returned if none of strings is valid
+     * @return Most significant value or default one
+     */
+    public long select(Iterable<String> strings, long defaultValue) {
+        long value = defaultValue;
+        boolean found = false;
+        for (String string : strings) {
+            long parsed = ValueParsers.parseLong(string, value);
+            // Fallback is returned for invalid strings, so it's checked again with different one
+            if (parsed == value && ValueParsers.parseLong(string, ~value) != value) {
+                continue;
+            }
+            if (!found || this.isMoreSignificant(Long.compare(parsed, value))) {
+                value = parsed;
+                found = true;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns most significant value out of provided strings. Invalid strings (and NaN) are skipped.
+     * Default value isn't compared with them, so for example LOWEST returns set value even if it's higher than default
+     *
+     * @param strings      Strings to parse
+     * @param defaultValue Value returned if none of strings is valid
+     * @return Most significant value or default one
+     */
+    public double select(Iterable<String> strings, double defaultValue) {
+        double value = defaultValue;
+        boolean found = false;
+        for (String string : strings) {
+            double parsed = ValueParsers.parseDouble(string, Double.NaN);
+            if (Double.isNaN(parsed)) {
+                continue;
+            }
+            if (!found || this.isMoreSignificant(Double.compare(parsed, value))) {
+                value = parsed;
+                found = true;
+            }
+        }
+        return value;
+    }
+
+    private boolean isMoreSignificant(int comparison) {
+        return this == HIGHEST ? comparison > 0 : comparison < 0;
+    }
+}
@@ -0,0 +1,477 @@
+package eu.pb4.permissions.impl;
+
+import eu.pb4.permissions.api.v0.PermissionChangeEvent;
+import eu.pb4.permissions.api.v0.PermissionKey;
+import eu.pb4.permissions.api.v0.PermissionProvider;
+import eu.pb4.permissions.api.v0.PermissionValue;
+import eu.pb4.permissions.api.v0.UserContext;
+import eu.pb4.permissions.api.v0.ValueAdapter;
+import eu.pb4.permissions.api.v0.ValueOrder;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provider wrapper memoizing results of permission checks per user.
+ * Cached values are dropped after user's permissions are changed through it,
+ * after PermissionChangeEvent is fired or invalidateAll() is called
+ * or when user's world or operator level changes. Caches of players are removed once they disconnect.
+ */
+@ApiStatus.Internal
+public final class CachingPermissionProvider implements PermissionProvider {
+    private static final int MAX_ENTRIES_PER_USER = 1024;
+    private static final int MAX_USERS = 1024;
+    private static volatile int globalGeneration = 0;
+
+    private final PermissionProvider provider;
+    private final Map<UUID, UserCache> caches = new ConcurrentHashMap<>();
+
+    public CachingPermissionProvider(PermissionProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Registers single listener of PermissionChangeEvent, invalidating currently used instance.
+     * Listeners can't be removed, so instances (recreated on every server start) don't register their own ones
+     */
+    public static void register() {
+        PermissionChangeEvent.register((uuid, permission, group) -> {
+            if (uuid == null) {
+                invalidateAll();
+            } else if (PermissionsImpl.DEFAULT_PROVIDER instanceof CachingPermissionProvider provider) {
+                provider.invalidate(uuid);
+            }
+        });
+    }
+
+    /**
+     * Invalidates cached values of all users
+     */
+    public static synchronized void invalidateAll() {
+        globalGeneration++;
+    }
+
+    /**
+     * Invalidates cached values of single user
+     */
+    public void invalidate(UUID uuid) {
+        UserCache cache = this.caches.get(uuid);
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    public PermissionProvider getProvider() {
+        return this.provider;
+    }
+
+    /**
+     * Removes cache of user, for example after player disconnects
+     */
+    public void remove(UUID uuid) {
+        this.caches.remove(uuid);
+    }
+
+    /**
+     * Removes cache of player from currently used instance
+     */
+    public static void onPlayerDisconnected(UUID uuid) {
+        if (PermissionsImpl.DEFAULT_PROVIDER instanceof CachingPermissionProvider provider) {
+            provider.remove(uuid);
+        }
+    }
+
+    private UserCache getCache(UserContext user) {
+        UserCache cache = this.caches.get(user.getUuid());
+        if (cache != null) {
+            return cache;
+        }
+
+        // Offline users and entities are never removed on disconnect, so the amount of cached users is limited too
+        if (this.caches.size() >= MAX_USERS) {
+            this.caches.clear();
+        }
+        return this.caches.computeIfAbsent(user.getUuid(), uuid -> new UserCache());
+    }
+
+    @Override
+    public PermissionValue check(UserContext user, String permission) {
+        UserCache cache = this.getCache(user);
+        PermissionValue value = cache.get(user, permission);
+        if (value == null) {
+            int version = cache.validate(user);
+            value = this.provider.check(user, permission);
+            cache.put(version, permission, value);
+        }
+        return value;
+    }
+
+    @Override
+    public PermissionValue check(UserContext user, PermissionKey permission) {
+        UserCache cache = this.getCache(user);
+        PermissionValue value = cache.get(user, permission.getPermission());
+        if (value == null) {
+            int version = cache.validate(user);
+            value = this.provider.check(user, permission);
+            cache.put(version, permission.getPermission(), value);
+        }
+        return value;
+    }
+
+    @Override
+    public PermissionValue hasAnyUnder(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.hasAnyUnder(user, parentPermission, world);
+    }
+
+    @Override
+    public Map<UserContext, PermissionValue> checkMany(Collection<UserContext> users, String permission) {
+        // Cache is kept per user, while providers can resolve permission once for all of them
+        return this.provider.checkMany(users, permission);
+    }
+
+    @Override
+    public List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission, int defaultLevel) {
+        return this.provider.filter(players, permission, defaultLevel);
+    }
+
+    @Override
+    public String getName() {
+        return this.provider.getName();
+    }
+
+    @Override
+    public String getIdentifier() {
+        return this.provider.getIdentifier();
+    }
+
+    @Override
+    public boolean supportsGroups() {
+        return this.provider.supportsGroups();
+    }
+
+    @Override
+    public boolean supportsTemporaryPermissions() {
+        return this.provider.supportsTemporaryPermissions();
+    }
+
+    @Override
+    public boolean supportsTimedGroups() {
+        return this.provider.supportsTimedGroups();
+    }
+
+    @Override
+    public boolean supportsPerWorldPermissions() {
+        return this.provider.supportsPerWorldPermissions();
+    }
+
+    @Override
+    public boolean supportsPerWorldGroups() {
+        return this.provider.supportsPerWorldGroups();
+    }
+
+    @Override
+    public boolean supportsOfflineChecks() {
+        return this.provider.supportsOfflineChecks();
+    }
+
+    @Override
+    public boolean supportsChangingPlayersPermissions() {
+        return this.provider.supportsChangingPlayersPermissions();
+    }
+
+    @Override
+    public Priority getPriority() {
+        return this.provider.getPriority();
+    }
+
+    @Override
+    public List<String> getList(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getList(user, world, value);
+    }
+
+    @Override
+    public List<String> getList(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getList(user, parentPermission, world, value);
+    }
+
+    @Override
+    public List<String> getListRegistered(UserContext user, String parentPermission, PermissionValue value) {
+        return this.provider.getListRegistered(user, parentPermission, value);
+    }
+
+    @Override
+    public List<String> getListNonInherited(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListNonInherited(user, world, value);
+    }
+
+    @Override
+    public List<String> getListNonInherited(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListNonInherited(user, parentPermission, world, value);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAll(UserContext user, @Nullable ServerWorld world) {
+        return this.provider.getAll(user, world);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAll(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.getAll(user, parentPermission, world);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllNonInherited(UserContext user, @Nullable ServerWorld world) {
+        return this.provider.getAllNonInherited(user, world);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllNonInherited(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.getAllNonInherited(user, parentPermission, world);
+    }
+
+    @Override
+    public <V> V getAsValue(UserContext user, String permission, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValue(user, permission, defaultValue, adapter);
+    }
+
+    @Override
+    public <V> V getAsValue(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValue(user, permission, world, defaultValue, adapter);
+    }
+
+    @Override
+    public <V> V getAsValueNonInherited(UserContext user, String permission, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueNonInherited(user, permission, defaultValue, adapter);
+    }
+
+    @Override
+    public <V> V getAsValueNonInherited(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueNonInherited(user, permission, world, defaultValue, adapter);
+    }
+
+    @Override
+    public int getAsInt(UserContext user, String permission, @Nullable ServerWorld world, int defaultValue, ValueOrder order) {
+        return this.provider.getAsInt(user, permission, world, defaultValue, order);
+    }
+
+    @Override
+    public long getAsLong(UserContext user, String permission, @Nullable ServerWorld world, long defaultValue, ValueOrder order) {
+        return this.provider.getAsLong(user, permission, world, defaultValue, order);
+    }
+
+    @Override
+    public double getAsDouble(UserContext user, String permission, @Nullable ServerWorld world, double defaultValue, ValueOrder order) {
+        return this.provider.getAsDouble(user, permission, world, defaultValue, order);
+    }
+
+    @Override
+    public void set(UserContext user, @Nullable ServerWorld world, String permission, PermissionValue value) {
+        this.provider.set(user, world, permission, value);
+        this.invalidate(user.getUuid());
+    }
+
+    @Override
+    public void set(UserContext user, @Nullable ServerWorld world, String permission, PermissionValue value, Duration duration) {
+        this.provider.set(user, world, permission, value, duration);
+        this.invalidate(user.getUuid());
+    }
+
+    @Override
+    public List<String> getGroups(UserContext user, @Nullable ServerWorld world) {
+        return this.provider.getGroups(user, world);
+    }
+
+    @Override
+    public CompletableFuture<PermissionValue> checkAsync(UserContext user, String permission) {
+        UserCache cache = this.getCache(user);
+        PermissionValue value = cache.get(user, permission);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        int version = cache.validate(user);
+        return this.provider.checkAsync(user, permission).thenApply(result -> {
+            cache.put(version, permission, result);
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, PermissionValue>> checkAllAsync(UserContext user, Collection<String> permissions) {
+        return this.provider.checkAllAsync(user, permissions);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getListAsync(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListAsync(user, world, value);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getListAsync(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListAsync(user, parentPermission, world, value);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, @Nullable ServerWorld world) {
+        return this.provider.getAllAsync(user, world);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.getAllAsync(user, parentPermission, world);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getGroupsAsync(UserContext user, @Nullable ServerWorld world) {
+        return this.provider.getGroupsAsync(user, world);
+    }
+
+    @Override
+    public <V> CompletableFuture<V> getAsValueAsync(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueAsync(user, permission, world, defaultValue, adapter);
+    }
+
+    @Override
+    public void addGroup(UserContext user, @Nullable ServerWorld world, String group) {
+        this.provider.addGroup(user, world, group);
+        this.invalidate(user.getUuid());
+    }
+
+    @Override
+    public void addGroup(UserContext user, @Nullable ServerWorld world, String group, Duration duration) {
+        this.provider.addGroup(user, world, group, duration);
+        this.invalidate(user.getUuid());
+    }
+
+    @Override
+    public void removeGroup(UserContext user, @Nullable ServerWorld world, String group) {
+        this.provider.removeGroup(user, world, group);
+        this.invalidate(user.getUuid());
+    }
+
+    @Override
+    public PermissionValue checkGroup(String group, @Nullable ServerWorld world, String permission) {
+        return this.provider.checkGroup(group, world, permission);
+    }
+
+    @Override
+    public PermissionValue hasAnyUnderGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.hasAnyUnderGroup(group, parentPermission, world);
+    }
+
+    @Override
+    public List<String> getListGroup(String group, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListGroup(group, world, value);
+    }
+
+    @Override
+    public List<String> getListGroup(String group, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListGroup(group, parentPermission, world, value);
+    }
+
+    @Override
+    public List<String> getListNonInheritedGroup(String group, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListNonInheritedGroup(group, world, value);
+    }
+
+    @Override
+    public List<String> getListNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return this.provider.getListNonInheritedGroup(group, parentPermission, world, value);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllGroup(String group, @Nullable ServerWorld world) {
+        return this.provider.getAllGroup(group, world);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.getAllGroup(group, parentPermission, world);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllNonInheritedGroup(String group, @Nullable ServerWorld world) {
+        return this.provider.getAllNonInheritedGroup(group, world);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        return this.provider.getAllNonInheritedGroup(group, parentPermission, world);
+    }
+
+    @Override
+    public <V> V getAsValueGroup(String group, String permission, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueGroup(group, permission, defaultValue, adapter);
+    }
+
+    @Override
+    public <V> V getAsValueGroup(String group, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueGroup(group, permission, world, defaultValue, adapter);
+    }
+
+    @Override
+    public <V> V getAsValueNonInheritedGroup(String group, String permission, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueNonInheritedGroup(group, permission, defaultValue, adapter);
+    }
+
+    @Override
+    public <V> V getAsValueNonInheritedGroup(String group, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return this.provider.getAsValueNonInheritedGroup(group, permission, world, defaultValue, adapter);
+    }
+
+    /**
+     * Cache of single UUID, which can be shared by multiple contexts (for example console and command blocks).
+     * Values are read only together with validation, so they always match level and world of checked context
+     */
+    private static final class UserCache {
+        private final Object2ObjectOpenHashMap<String, PermissionValue> values = new Object2ObjectOpenHashMap<>();
+        private int version = 0;
+        private int generation = globalGeneration;
+        private int level = -1;
+        private ServerWorld world = null;
+
+        private synchronized int validate(UserContext user) {
+            int generation = globalGeneration;
+            int level = user.getPermissionLevel();
+            ServerWorld world = user.getWorld();
+
+            if (this.generation != generation || this.level != level || this.world != world) {
+                this.values.clear();
+                this.version++;
+                this.generation = generation;
+                this.level = level;
+                this.world = world;
+            }
+            return this.version;
+        }
+
+        private synchronized PermissionValue get(UserContext user, String permission) {
+            this.validate(user);
+            return this.values.get(permission);
+        }
+
+        private synchronized void put(int version, String permission, PermissionValue value) {
+            if (this.version == version && this.generation == globalGeneration) {
+                if (this.values.size() >= MAX_ENTRIES_PER_USER) {
+                    this.values.clear();
+                }
+                this.values.put(permission, value);
+            }
+        }
+
+        private synchronized void invalidate() {
+            this.values.clear();
+            this.version++;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package eu.pb4.permissions.impl;
+
+import eu.pb4.permissions.api.v0.PermissionKey;
+import eu.pb4.permissions.api.v0.PermissionValue;
+import eu.pb4.permissions.api.v0.UserContext;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Map;
+
+/**
+ * Keeps results of permission checks while command tree is built for a player,
+ * so every permission is resolved only once per tree, not once per command node
+ */
+@ApiStatus.Internal
+public final class CommandTreeMemo {
+    private static final ThreadLocal<CommandTreeMemo> ACTIVE = new ThreadLocal<>();
+
+    private final ServerPlayerEntity player;
+    private final Map<PermissionKey, PermissionValue> values = new Object2ObjectOpenHashMap<>();
+
+    private CommandTreeMemo(ServerPlayerEntity player) {
+        this.player = player;
+    }
+
+    public static void start(ServerPlayerEntity player) {
+        ACTIVE.set(new CommandTreeMemo(player));
+    }
+
+    public static void end() {
+        ACTIVE.remove();
+    }
+
+    public static PermissionValue check(ServerPlayerEntity player, PermissionKey permission) {
+        CommandTreeMemo memo = ACTIVE.get();
+        if (memo == null || memo.player != player) {
+            return PermissionsImpl.get().check(UserContext.of(player), permission);
+        }
+
+        PermissionValue value = memo.values.get(permission);
+        if (value == null) {
+            value = PermissionsImpl.get().check(UserContext.of(player), permission);
+            memo.values.put(permission, value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,173 @@
+package eu.pb4.permissions.impl;
+
+import eu.pb4.permissions.api.v0.PermissionChangeEvent;
+import eu.pb4.permissions.api.v0.UserContext;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.PlayerManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resends command trees to players, after permissions used by Permissions.require(...) change.
+ * Changes are collected and sent once per tick, as providers can fire many of them at once.
+ * Changes of groups are resent only to players in them.
+ */
+@ApiStatus.Internal
+public final class CommandTreeUpdater {
+    private static final Set<String> GUARDED_PERMISSIONS = ConcurrentHashMap.newKeySet();
+    // Guarded permissions with all their parents, so checking changed permission only walks its own parents
+    private static final Set<String> GUARDED_PARENTS = ConcurrentHashMap.newKeySet();
+    private static final Set<UUID> PENDING_PLAYERS = ConcurrentHashMap.newKeySet();
+    private static final Set<String> PENDING_GROUPS = ConcurrentHashMap.newKeySet();
+    // Set while running changes, after which vanilla sends command trees by itself
+    private static final ThreadLocal<Boolean> SKIPPED = ThreadLocal.withInitial(() -> false);
+    private static volatile boolean pendingAll = false;
+
+    private CommandTreeUpdater() {
+    }
+
+    public static void register() {
+        PermissionChangeEvent.register(CommandTreeUpdater::onPermissionChange);
+    }
+
+    /**
+     * Marks permission as one used by command requirements
+     */
+    public static void addGuardedPermission(String permission) {
+        String guarded = stripSuffix(permission);
+        GUARDED_PARENTS.add("");
+        for (int i = guarded.indexOf('.'); i != -1; i = guarded.indexOf('.', i + 1)) {
+            GUARDED_PARENTS.add(guarded.substring(0, i));
+        }
+        GUARDED_PARENTS.add(guarded);
+        GUARDED_PERMISSIONS.add(guarded);
+    }
+
+    /**
+     * Runs action without resending command trees after changes made by it,
+     * as vanilla sends them by itself afterwards (for example after reload)
+     */
+    public static void runWithoutResend(Runnable action) {
+        SKIPPED.set(true);
+        try {
+            action.run();
+        } finally {
+            SKIPPED.set(false);
+        }
+    }
+
+    /**
+     * Called before vanilla sends command tree to player (for example after /op), which already includes all changes
+     */
+    public static void onCommandTreeSent(ServerPlayerEntity player) {
+        PENDING_PLAYERS.remove(player.getUuid());
+    }
+
+    private static void onPermissionChange(@Nullable UUID uuid, @Nullable String permission, @Nullable String group) {
+        if (GUARDED_PERMISSIONS.isEmpty() || SKIPPED.get() || (permission != null && !isGuarded(stripSuffix(permission)))) {
+            return;
+        }
+
+        if (uuid != null) {
+            PENDING_PLAYERS.add(uuid);
+        } else if (group != null) {
+            PENDING_GROUPS.add(group);
+        } else {
+            pendingAll = true;
+        }
+    }
+
+    /**
+     * Checks if changed permission can change result of any guarded one, which happens if one is under the other one
+     * (for example wildcards or checks of any permission under parent)
+     */
+    private static boolean isGuarded(String permission) {
+        if (GUARDED_PARENTS.contains(permission)) {
+            return true;
+        }
+
+        String parent = permission;
+        int index;
+        while ((index = parent.lastIndexOf('.')) != -1) {
+            parent = parent.substring(0, index);
+            if (GUARDED_PERMISSIONS.contains(parent)) {
+                return true;
+            }
+        }
+        return GUARDED_PERMISSIONS.contains("");
+    }
+
+    private static String stripSuffix(String permission) {
+        if (permission.equals("*")) {
+            return "";
+        }
+        return permission.endsWith(".*") || permission.endsWith(".?") ? permission.substring(0, permission.length() - 2) : permission;
+    }
+
+    /**
+     * Sends command trees to players with changed permissions. Called at the end of every server tick
+     */
+    public static void tick(MinecraftServer server) {
+        PlayerManager playerManager = server.getPlayerManager();
+        if (playerManager == null) {
+            return;
+        }
+
+        if (pendingAll) {
+            pendingAll = false;
+            PENDING_PLAYERS.clear();
+            PENDING_GROUPS.clear();
+            for (ServerPlayerEntity player : playerManager.getPlayerList()) {
+                playerManager.sendCommandTree(player);
+            }
+            return;
+        }
+
+        if (!PENDING_GROUPS.isEmpty()) {
+            Set<String> groups = new HashSet<>();
+            Iterator<String> iterator = PENDING_GROUPS.iterator();
+            while (iterator.hasNext()) {
+                groups.add(iterator.next());
+                iterator.remove();
+            }
+
+            for (ServerPlayerEntity player : playerManager.getPlayerList()) {
+                if (isInAnyGroup(player, groups)) {
+                    PENDING_PLAYERS.add(player.getUuid());
+                }
+            }
+        }
+
+        if (!PENDING_PLAYERS.isEmpty()) {
+            Iterator<UUID> iterator = PENDING_PLAYERS.iterator();
+            while (iterator.hasNext()) {
+                ServerPlayerEntity player = playerManager.getPlayer(iterator.next());
+                iterator.remove();
+                if (player != null) {
+                    playerManager.sendCommandTree(player);
+                }
+            }
+        }
+    }
+
+    private static boolean isInAnyGroup(ServerPlayerEntity player, Set<String> groups) {
+        try {
+            for (String group : PermissionsImpl.get().getGroups(UserContext.of(player))) {
+                if (groups.contains(group)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            // Tree is resent, as it's unknown if player is affected
+            return true;
+        }
+    }
+}
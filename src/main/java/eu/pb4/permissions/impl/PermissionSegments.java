@@ -0,0 +1,56 @@
+package eu.pb4.permissions.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of permission segments (parts separated by a dot), shared between all PermissionKeys.
+ * Only segments of created keys are interned, as they are kept for the whole runtime.
+ * Others (for example ones from configs) can only look up existing ids.
+ */
+@ApiStatus.Internal
+public final class PermissionSegments {
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    // Written after segment is added, so all ids lower than it can be found
+    private static volatile int count = 0;
+
+    private PermissionSegments() {
+    }
+
+    /**
+     * Returns id of segment, assigning new one if it doesn't have it yet
+     */
+    public static int intern(String segment) {
+        Integer id = IDS.get(segment);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (IDS) {
+            id = IDS.get(segment);
+            if (id == null) {
+                id = count;
+                IDS.put(segment, id);
+                count = id + 1;
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns id of segment or -1 if it wasn't interned
+     */
+    public static int getId(String segment) {
+        Integer id = IDS.get(segment);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns amount of interned segments. All segments with lower ids are already interned
+     */
+    public static int getCount() {
+        return count;
+    }
+}
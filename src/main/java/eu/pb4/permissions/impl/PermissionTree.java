@@ -0,0 +1,564 @@
+package eu.pb4.permissions.impl;
+
+import eu.pb4.permissions.api.v0.PermissionKey;
+import eu.pb4.permissions.api.v0.PermissionValue;
+
+import java.util.*;
+
+/**
+ * Compiled permission node tree, used for resolving permissions with wildcards
+ * without splitting permission or creating intermediate strings.
+ * It also keeps sorted arrays of all permissions, so listing children of a parent
+ * permission only needs to find matching range, which is then returned as a view.
+ * It's built once and only read afterwards.
+ */
+public final class PermissionTree {
+    private static final byte UNSET = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+
+    // Segments interned later don't have ids in this tree, so keys look them up by string instead
+    private final int segmentCount = PermissionSegments.getCount();
+    private final Node root = new Node("");
+    private String[] keys;
+    private boolean[] values;
+    private String[] trueKeys;
+    private String[] falseKeys;
+
+    private PermissionTree() {
+    }
+
+    public static PermissionTree of(Map<String, Boolean> permissions) {
+        PermissionTree tree = new PermissionTree();
+        String[] keys = permissions.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+
+        boolean[] values = new boolean[keys.length];
+        int trueCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = permissions.get(keys[i]);
+            tree.put(keys[i], values[i]);
+            if (values[i]) {
+                trueCount++;
+            }
+        }
+
+        String[] trueKeys = new String[trueCount];
+        String[] falseKeys = new String[keys.length - trueCount];
+        int trueIndex = 0;
+        int falseIndex = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i]) {
+                trueKeys[trueIndex++] = keys[i];
+            } else {
+                falseKeys[falseIndex++] = keys[i];
+            }
+        }
+
+        tree.root.summarize();
+        tree.keys = keys;
+        tree.values = values;
+        tree.trueKeys = trueKeys;
+        tree.falseKeys = falseKeys;
+        return tree;
+    }
+
+    private static byte toByte(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    private static PermissionValue toValue(byte value) {
+        return switch (value) {
+            case TRUE -> PermissionValue.TRUE;
+            case FALSE -> PermissionValue.FALSE;
+            default -> PermissionValue.DEFAULT;
+        };
+    }
+
+    private static int hash(String string, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + string.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Compares key with `parent.` without creating it. Returns 0 if key starts with it
+     */
+    private static int compareWithParent(String key, String parent) {
+        int length = parent.length();
+        int min = Math.min(key.length(), length);
+        for (int i = 0; i < min; i++) {
+            int diff = key.charAt(i) - parent.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return key.length() > length ? key.charAt(length) - '.' : -1;
+    }
+
+    /**
+     * Compares part of key starting at offset with other string, same as String.compareTo
+     */
+    private static int compare(String key, int offset, String other) {
+        int length = key.length() - offset;
+        int min = Math.min(length, other.length());
+        for (int i = 0; i < min; i++) {
+            int diff = key.charAt(offset + i) - other.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - other.length();
+    }
+
+    private static int findStart(String[] keys, String parent) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareWithParent(keys[mid], parent) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Skips `parent.` itself, as it doesn't have any child part
+        if (low < keys.length && keys[low].length() == parent.length() + 1 && compareWithParent(keys[low], parent) == 0) {
+            low++;
+        }
+        return low;
+    }
+
+    private static int findEnd(String[] keys, String parent, int start) {
+        int low = start;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareWithParent(keys[mid], parent) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String[] getKeys(PermissionValue value) {
+        return switch (value) {
+            case TRUE -> this.trueKeys;
+            case FALSE -> this.falseKeys;
+            case DEFAULT -> this.keys;
+        };
+    }
+
+    private void put(String permission, boolean value) {
+        Node node = this.root;
+        int start = 0;
+        while (true) {
+            int end = permission.indexOf('.', start);
+            if (end == -1) {
+                String segment = permission.substring(start);
+                if (segment.equals("*")) {
+                    node.wildcard = toByte(value);
+                } else {
+                    node.getOrCreate(segment).value = toByte(value);
+                }
+                return;
+            }
+            node = node.getOrCreate(permission.substring(start, end));
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Resolves value of permission. If it isn't set directly, value of the closest
+     * `parent.*` wildcard is returned instead
+     */
+    public PermissionValue get(String permission) {
+        Node node = this.root;
+        byte wildcard = UNSET;
+        int length = permission.length();
+        int start = 0;
+
+        while (true) {
+            int end = permission.indexOf('.', start);
+            if (end == -1) {
+                if (length - start == 1 && permission.charAt(start) == '*') {
+                    return toValue(node == this.root ? node.wildcard : wildcard);
+                }
+
+                Node child = node.get(permission, start, length);
+                return toValue(child != null && child.value != UNSET ? child.value : wildcard);
+            }
+
+            Node child = node.get(permission, start, end);
+            if (child == null) {
+                return toValue(wildcard);
+            } else if (child.wildcard != UNSET) {
+                wildcard = child.wildcard;
+            }
+
+            node = child;
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Checks if any child permission of parent exists. Only nodes of parent are visited,
+     * as every node knows values of its children
+     */
+    public PermissionValue hasAnyUnder(String parent) {
+        return this.hasAnyUnder(parent, parent.length());
+    }
+
+    /**
+     * Checks if any child permission of parent exists, where parent is first part of permission ending at end
+     */
+    public PermissionValue hasAnyUnder(String permission, int end) {
+        Node node = this.root;
+        int start = 0;
+
+        while (true) {
+            int next = permission.indexOf('.', start);
+            if (next == -1 || next > end) {
+                next = end;
+            }
+
+            node = node.get(permission, start, next);
+            if (node == null) {
+                return PermissionValue.DEFAULT;
+            } else if (next == end) {
+                return node.getUnder();
+            }
+            start = next + 1;
+        }
+    }
+
+    /**
+     * Checks if any child permission of key without its last segment (for example `.?`) exists
+     */
+    public PermissionValue hasAnyUnderParent(PermissionKey key) {
+        Node node = this.root;
+        int last = key.getSegmentCount() - 1;
+
+        for (int i = 0; i < last; i++) {
+            node = this.getChild(node, key, i);
+            if (node == null) {
+                return PermissionValue.DEFAULT;
+            }
+        }
+        return last > 0 ? node.getUnder() : PermissionValue.DEFAULT;
+    }
+
+    private Node getChild(Node node, PermissionKey key, int index) {
+        int id = key.getSegmentId(index);
+        if (id < this.segmentCount) {
+            return node.get(id);
+        }
+
+        String segment = key.getSegment(index);
+        return node.get(segment, 0, segment.length());
+    }
+
+    /**
+     * Resolves value of permission key, using the same rules as string lookup
+     */
+    public PermissionValue get(PermissionKey key) {
+        Node node = this.root;
+        byte wildcard = UNSET;
+        int last = key.getSegmentCount() - 1;
+
+        for (int i = 0; i < last; i++) {
+            Node child = this.getChild(node, key, i);
+            if (child == null) {
+                return toValue(wildcard);
+            } else if (child.wildcard != UNSET) {
+                wildcard = child.wildcard;
+            }
+            node = child;
+        }
+
+        if (key.isWildcard()) {
+            return toValue(node == this.root ? node.wildcard : wildcard);
+        }
+
+        Node child = this.getChild(node, key, last);
+        return toValue(child != null && child.value != UNSET ? child.value : wildcard);
+    }
+
+    /**
+     * Returns view of all permissions matching the value
+     */
+    public List<String> getList(PermissionValue value) {
+        String[] keys = this.getKeys(value);
+        return new KeyList(keys, 0, keys.length, 0);
+    }
+
+    /**
+     * Returns view of child permissions of parent (without `parent.` prefix) matching the value
+     */
+    public List<String> getList(String parent, PermissionValue value) {
+        String[] keys = this.getKeys(value);
+        int start = findStart(keys, parent);
+        return new KeyList(keys, start, findEnd(keys, parent, start), parent.length() + 1);
+    }
+
+    /**
+     * Returns view of all permissions with their values
+     */
+    public Map<String, PermissionValue> getAll() {
+        return new ValueMap(this.keys, this.values, 0, this.keys.length, 0);
+    }
+
+    /**
+     * Returns view of child permissions of parent (without `parent.` prefix) with their values
+     */
+    public Map<String, PermissionValue> getAll(String parent) {
+        int start = findStart(this.keys, parent);
+        return new ValueMap(this.keys, this.values, start, findEnd(this.keys, parent, start), parent.length() + 1);
+    }
+
+    private static final class KeyList extends AbstractList<String> implements RandomAccess {
+        private final String[] keys;
+        private final int start;
+        private final int end;
+        private final int offset;
+
+        private KeyList(String[] keys, int start, int end, int offset) {
+            this.keys = keys;
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, this.size());
+            return this.keys[this.start + index].substring(this.offset);
+        }
+
+        @Override
+        public int size() {
+            return this.end - this.start;
+        }
+    }
+
+    private static final class ValueMap extends AbstractMap<String, PermissionValue> {
+        private final String[] keys;
+        private final boolean[] values;
+        private final int start;
+        private final int end;
+        private final int offset;
+        private Set<Entry<String, PermissionValue>> entrySet;
+
+        private ValueMap(String[] keys, boolean[] values, int start, int end, int offset) {
+            this.keys = keys;
+            this.values = values;
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+        }
+
+        private int indexOf(Object key) {
+            if (key instanceof String string) {
+                int low = this.start;
+                int high = this.end - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int result = compare(this.keys[mid], this.offset, string);
+                    if (result < 0) {
+                        low = mid + 1;
+                    } else if (result > 0) {
+                        high = mid - 1;
+                    } else {
+                        return mid;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public PermissionValue get(Object key) {
+            int index = this.indexOf(key);
+            return index != -1 ? PermissionValue.of(this.values[index]) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.indexOf(key) != -1;
+        }
+
+        @Override
+        public int size() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public Set<Entry<String, PermissionValue>> entrySet() {
+            if (this.entrySet == null) {
+                this.entrySet = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, PermissionValue>> iterator() {
+                        return new Iterator<>() {
+                            private int index = ValueMap.this.start;
+
+                            @Override
+                            public boolean hasNext() {
+                                return this.index < ValueMap.this.end;
+                            }
+
+                            @Override
+                            public Entry<String, PermissionValue> next() {
+                                if (this.index >= ValueMap.this.end) {
+                                    throw new NoSuchElementException();
+                                }
+                                int i = this.index++;
+                                return new SimpleImmutableEntry<>(ValueMap.this.keys[i].substring(ValueMap.this.offset), PermissionValue.of(ValueMap.this.values[i]));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return ValueMap.this.size();
+                    }
+                };
+            }
+            return this.entrySet;
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] EMPTY = new Node[0];
+
+        private final String segment;
+        private final int hash;
+        private final int id;
+        private byte value = UNSET;
+        private byte wildcard = UNSET;
+        private boolean anyTrueUnder = false;
+        private boolean anyFalseUnder = false;
+        private Node[] children = EMPTY;
+        private Node[] childrenById = EMPTY;
+        private int size = 0;
+
+        private Node(String segment) {
+            this.segment = segment;
+            this.hash = segment.hashCode();
+            // Config segments aren't interned, so they aren't kept after tree is replaced
+            this.id = PermissionSegments.getId(segment);
+        }
+
+        /**
+         * Computes if any true or false child permissions exist under this node
+         * Returns values of all permissions under it, including `parent.` itself.
+         * Values are used as bit flags, as TRUE and FALSE don't share any bits
+         */
+        private int summarize() {
+            int under = this.wildcard;
+            int all = under;
+
+            for (Node node : this.children) {
+                if (node != null) {
+                    int childUnder = node.summarize();
+                    // `parent.` itself isn't a child permission of parent
+                    under |= node.segment.isEmpty() ? childUnder : childUnder | node.value;
+                    all |= childUnder | node.value;
+                }
+            }
+
+            this.anyTrueUnder = (under & TRUE) != 0;
+            this.anyFalseUnder = (under & FALSE) != 0;
+            return all;
+        }
+
+        private PermissionValue getUnder() {
+            return this.anyTrueUnder ? PermissionValue.TRUE : this.anyFalseUnder ? PermissionValue.FALSE : PermissionValue.DEFAULT;
+        }
+
+        private static int index(int hash, int mask) {
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private Node get(String permission, int start, int end) {
+            if (this.size == 0) {
+                return null;
+            }
+
+            int length = end - start;
+            int hash = hash(permission, start, end);
+            int mask = this.children.length - 1;
+            int i = index(hash, mask);
+
+            Node node;
+            while ((node = this.children[i]) != null) {
+                if (node.hash == hash && node.segment.length() == length && permission.regionMatches(start, node.segment, 0, length)) {
+                    return node;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private Node get(int id) {
+            if (this.size == 0) {
+                return null;
+            }
+
+            int mask = this.childrenById.length - 1;
+            int i = index(id, mask);
+
+            Node node;
+            while ((node = this.childrenById[i]) != null) {
+                if (node.id == id) {
+                    return node;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private Node getOrCreate(String segment) {
+            Node node = this.get(segment, 0, segment.length());
+            if (node == null) {
+                if ((this.size + 1) * 2 > this.children.length) {
+                    this.resize();
+                }
+                node = new Node(segment);
+                insert(this.children, node, node.hash);
+                if (node.id != -1) {
+                    insert(this.childrenById, node, node.id);
+                }
+                this.size++;
+            }
+            return node;
+        }
+
+        private void resize() {
+            Node[] old = this.children;
+            this.children = new Node[Math.max(4, old.length * 2)];
+            this.childrenById = new Node[this.children.length];
+            for (Node node : old) {
+                if (node != null) {
+                    insert(this.children, node, node.hash);
+                    if (node.id != -1) {
+                        insert(this.childrenById, node, node.id);
+                    }
+                }
+            }
+        }
+
+        private static void insert(Node[] table, Node node, int hash) {
+            int mask = table.length - 1;
+            int i = index(hash, mask);
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+        }
+    }
+}
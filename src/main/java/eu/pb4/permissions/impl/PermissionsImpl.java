@@ -1,36 +1,54 @@
 package eu.pb4.permissions.impl;
 
 import eu.pb4.permissions.PermissionsAPIMod;
+import eu.pb4.permissions.api.v0.PermissionChangeEvent;
 import eu.pb4.permissions.api.v0.PermissionProvider;
 import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
 import net.minecraft.server.MinecraftServer;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 @ApiStatus.Internal
 public final class PermissionsImpl {
-    static final Map<String, PermissionProvider> PROVIDERS = new HashMap<>();
-    static PermissionProvider DEFAULT_PROVIDER = null;
+    static final Map<String, PermissionProvider> PROVIDERS = new ConcurrentHashMap<>();
+    static volatile PermissionProvider DEFAULT_PROVIDER = null;
+    // Own listener list instead of fabric-api event, so core doesn't depend on it
+    private static final List<PermissionChangeEvent> CHANGE_LISTENERS = new CopyOnWriteArrayList<>();
     private static boolean DONE = false;
 
     public static PermissionProvider get() {
-        if (DEFAULT_PROVIDER == null) {
+        PermissionProvider provider = DEFAULT_PROVIDER;
+        if (provider == null) {
             throw new RuntimeException("Provider isn't loaded yet!");
         }
 
-        return DEFAULT_PROVIDER;
+        return provider;
     }
 
     public static PermissionProvider getById(String identifier) {
         return PROVIDERS.get(identifier);
     }
 
+    public static void registerChangeListener(PermissionChangeEvent listener) {
+        CHANGE_LISTENERS.add(listener);
+    }
+
+    public static void fireChange(@Nullable UUID uuid, @Nullable String permission, @Nullable String group) {
+        for (PermissionChangeEvent listener : CHANGE_LISTENERS) {
+            listener.onPermissionChange(uuid, permission, group);
+        }
+    }
+
     @ApiStatus.Internal
     public static void setup(MinecraftServer server) {
         if (DONE) {
@@ -106,7 +124,12 @@ public final class PermissionsImpl {
             PermissionsAPIMod.LOGGER.warn(String.format("Previous permission provider (%s) was replaced with new one!", oldProvider));
         }
         PermissionsAPIMod.LOGGER.info(String.format("Selected permission provider: %s (%s)", selectedProvider.getName(), selectedProvider.getIdentifier()));
-        DEFAULT_PROVIDER = selectedProvider;
+        if (config.cacheChecks) {
+            selectedProvider = new CachingPermissionProvider(selectedProvider);
+            PermissionsAPIMod.LOGGER.info("Caching of permission checks is enabled");
+        }
+        // Providers are registered first, so anyone seeing default provider can also find others
         PROVIDERS.putAll(providerMap);
+        DEFAULT_PROVIDER = selectedProvider;
     }
 }
@@ -3,4 +3,5 @@ package eu.pb4.permissions.impl;
 public class SimpleConfig {
     public String _availableProviders;
     public String defaultProvider;
+    public boolean cacheChecks = false;
 }
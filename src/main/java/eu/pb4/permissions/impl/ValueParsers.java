@@ -0,0 +1,71 @@
+package eu.pb4.permissions.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Number parsers used by ValueOrder.
+ * Unlike ones from java, they return fallback instead of throwing on invalid input.
+ */
+@ApiStatus.Internal
+public final class ValueParsers {
+    private ValueParsers() {
+    }
+
+    public static int parseInt(String string, int fallback) {
+        long value = parseLong(string, Long.MIN_VALUE);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : fallback;
+    }
+
+    public static long parseLong(String string, long fallback) {
+        int length = string.length();
+        if (length == 0) {
+            return fallback;
+        }
+
+        int i = 0;
+        boolean negative = false;
+        char first = string.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (length == 1) {
+                return fallback;
+            }
+        }
+
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = string.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return fallback;
+            }
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return fallback;
+            }
+            value = value * 10 - digit;
+        }
+
+        if (negative) {
+            return value;
+        } else {
+            return value == Long.MIN_VALUE ? fallback : -value;
+        }
+    }
+
+    public static double parseDouble(String string, double fallback) {
+        if (string.isEmpty()) {
+            return fallback;
+        }
+
+        char first = string.charAt(0);
+        if ((first < '0' || first > '9') && first != '-' && first != '+' && first != '.') {
+            return fallback;
+        }
+
+        try {
+            return Double.parseDouble(string);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
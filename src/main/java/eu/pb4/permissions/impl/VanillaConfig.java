@@ -6,8 +6,10 @@ import java.util.Map;
 public class VanillaConfig {
     public String _availableProviders;
     public String defaultProvider;
+    public boolean cacheChecks = false;
 
     public String _section = "Vanilla/Build in permissions";
+    public boolean memoizeChecks = false;
     public Map<String, Boolean> defaultPermissions = new HashMap<>();
     public Map<String, Boolean> level1Permissions = new HashMap<>();
     public Map<String, Boolean> level2Permissions = new HashMap<>();
@@ -18,6 +20,7 @@ public class VanillaConfig {
         SimpleConfig config = new SimpleConfig();
         config._availableProviders = this._availableProviders;
         config.defaultProvider = defaultProvider;
+        config.cacheChecks = this.cacheChecks;
         return config;
     }
 }
@@ -1,34 +1,31 @@
 package eu.pb4.permissions.impl;
 
+import eu.pb4.permissions.api.v0.PermissionChangeEvent;
+import eu.pb4.permissions.api.v0.PermissionKey;
 import eu.pb4.permissions.api.v0.PermissionProvider;
+import eu.pb4.permissions.api.v0.PermissionRegistry;
 import eu.pb4.permissions.api.v0.PermissionValue;
 import eu.pb4.permissions.api.v0.UserContext;
-import it.unimi.dsi.fastutil.objects.Object2BooleanArrayMap;
-import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
+import eu.pb4.permissions.impl.context.UserContextHolder;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.OperatorEntry;
 import net.minecraft.server.OperatorList;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.MathHelper;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings({"unchecked"})
 public class VanillaPermissionProvider implements PermissionProvider {
     private final static String OPERATOR_PREFIX = "operator-level-";
-    private static VanillaPermissionProvider INSTANCE;
+    private static volatile VanillaPermissionProvider INSTANCE;
     private final MinecraftServer server;
-    public Object2BooleanMap<String> defaultPermissions = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level1Permissions = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level1PermissionsNon = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level2Permissions = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level2PermissionsNon = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level3Permissions = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level3PermissionsNon = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level4Permissions = new Object2BooleanArrayMap<>();
-    public Object2BooleanMap<String> level4PermissionsNon = new Object2BooleanArrayMap<>();
+    private volatile Snapshot snapshot;
 
     private VanillaPermissionProvider(MinecraftServer server, VanillaConfig config) {
         this.server = server;
@@ -44,35 +41,13 @@ public class VanillaPermissionProvider implements PermissionProvider {
         return INSTANCE;
     }
 
+    /**
+     * Replaces permissions with ones from config. New permissions are fully built
+     * before being published, so concurrent checks see either old or new ones
+     */
     public void setConfig(VanillaConfig config) {
-        this.defaultPermissions.clear();
-        this.level1Permissions.clear();
-        this.level2Permissions.clear();
-        this.level3Permissions.clear();
-        this.level4Permissions.clear();
-        this.level1PermissionsNon.clear();
-        this.level2PermissionsNon.clear();
-        this.level3PermissionsNon.clear();
-        this.level4PermissionsNon.clear();
-
-        this.defaultPermissions.putAll(config.defaultPermissions);
-
-        this.level1Permissions.putAll(this.defaultPermissions);
-        this.level1Permissions.putAll(config.level1Permissions);
-        this.level1PermissionsNon.putAll(config.level1Permissions);
-
-        this.level2Permissions.putAll(this.level1Permissions);
-        this.level2Permissions.putAll(config.level2Permissions);
-        this.level2PermissionsNon.putAll(config.level2Permissions);
-
-        this.level3Permissions.putAll(this.level2Permissions);
-        this.level3Permissions.putAll(config.level3Permissions);
-        this.level3PermissionsNon.putAll(config.level3Permissions);
-
-        this.level4Permissions.putAll(this.level3Permissions);
-        this.level4Permissions.putAll(config.level4Permissions);
-        this.level4PermissionsNon.putAll(config.level4Permissions);
-
+        this.snapshot = Snapshot.of(config);
+        PermissionChangeEvent.fireAll();
     }
 
     @Override
@@ -125,93 +100,127 @@ public class VanillaPermissionProvider implements PermissionProvider {
         return Priority.FALLBACK;
     }
 
-    private Object2BooleanMap<String> getPermissionMap(UserContext context) {
-        return switch (context.getPermissionLevel()) {
-            case 4 -> level4Permissions;
-            case 3 -> level3Permissions;
-            case 2 -> level2Permissions;
-            case 1 -> level1Permissions;
-            default -> defaultPermissions;
+    private static int getLevel(String group) {
+        return switch (group) {
+            case OPERATOR_PREFIX + 4 -> 4;
+            case OPERATOR_PREFIX + 3 -> 3;
+            case OPERATOR_PREFIX + 2 -> 2;
+            case OPERATOR_PREFIX + 1 -> 1;
+            default -> 0;
         };
     }
 
-    private Object2BooleanMap<String> getPermissionMap(String group) {
-        return switch (group) {
-            case OPERATOR_PREFIX + 4 -> level4Permissions;
-            case OPERATOR_PREFIX + 3 -> level3Permissions;
-            case OPERATOR_PREFIX + 2 -> level2Permissions;
-            case OPERATOR_PREFIX + 1 -> level1Permissions;
-            default -> defaultPermissions;
-        };
+    private static PermissionValue check(PermissionTree tree, String permission) {
+        if (permission.endsWith(".?")) {
+            return tree.hasAnyUnder(permission, permission.length() - 2);
+        } else {
+            return tree.get(permission);
+        }
     }
 
-    private Object2BooleanMap<String> getPermissionMapNon(String group) {
-        return switch (group) {
-            case OPERATOR_PREFIX + 4 -> level4PermissionsNon;
-            case OPERATOR_PREFIX + 3 -> level3PermissionsNon;
-            case OPERATOR_PREFIX + 2 -> level2PermissionsNon;
-            case OPERATOR_PREFIX + 1 -> level1PermissionsNon;
-            default -> defaultPermissions;
-        };
+    private PermissionTree getPermissionTree(UserContext context) {
+        return this.snapshot.getTree(context.getPermissionLevel());
+    }
+
+    private PermissionTree getPermissionTree(String group) {
+        return this.snapshot.getTree(getLevel(group));
+    }
+
+    private PermissionTree getPermissionTreeNon(String group) {
+        return this.snapshot.getTreeNon(getLevel(group));
     }
 
     @Override
     public PermissionValue check(UserContext user, String permission) {
-        var map = getPermissionMap(user);
-        if (permission.endsWith(".?")) {
-            String substring = permission.substring(0, permission.length() - 2);
+        return this.snapshot.check(user.getPermissionLevel(), permission);
+    }
 
-            return this.getList(user, substring, PermissionValue.TRUE).size() > 0
-                    ? PermissionValue.TRUE
-                    : this.getList(user, substring, PermissionValue.FALSE).size() > 0
-                    ? PermissionValue.FALSE : PermissionValue.DEFAULT;
-        } else {
-            if (map.containsKey(permission)) {
-                return PermissionValue.of(map.getBoolean(permission));
-            } else {
-                String[] parts = permission.split("\\.");
-                int length = parts.length - 1;
-                while (length != 0) {
-                    StringBuilder key = new StringBuilder();
-                    for (int x = 0; x < length; x++) {
-                        key.append(parts[x]).append(".");
-                    }
-                    key.append("*");
-
-                    length--;
-                    if (map.containsKey(key.toString())) {
-                        return PermissionValue.of(map.getBoolean(key.toString()));
-                    }
-                }
-                return PermissionValue.DEFAULT;
+    @Override
+    public PermissionValue check(UserContext user, PermissionKey permission) {
+        return this.snapshot.check(user.getPermissionLevel(), permission);
+    }
+
+    @Override
+    public Map<String, PermissionValue> checkAll(UserContext user, Collection<String> permissions) {
+        Snapshot snapshot = this.snapshot;
+        int level = user.getPermissionLevel();
+        Map<String, PermissionValue> map = new Object2ObjectOpenHashMap<>(permissions.size());
+        for (String permission : permissions) {
+            map.put(permission, snapshot.check(level, permission));
+        }
+        return map;
+    }
+
+    @Override
+    public Map<UserContext, PermissionValue> checkMany(Collection<UserContext> users, String permission) {
+        // Value only depends on operator level, so it's resolved once per level
+        Snapshot snapshot = this.snapshot;
+        PermissionValue[] values = new PermissionValue[Snapshot.LEVELS];
+        Map<UserContext, PermissionValue> map = new Object2ObjectOpenHashMap<>(users.size());
+        for (UserContext user : users) {
+            int level = Snapshot.getIndex(user.getPermissionLevel());
+            PermissionValue value = values[level];
+            if (value == null) {
+                value = values[level] = snapshot.check(level, permission);
             }
+            map.put(user, value);
         }
+        return map;
     }
 
     @Override
-    public List<String> getList(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
-        List<String> list = new ArrayList<>();
-        for (Object2BooleanMap.Entry<String> n : this.getPermissionMap(user).object2BooleanEntrySet()) {
-            if (value.pass(n.getBooleanValue())) {
-                String key = n.getKey();
-                list.add(key);
+    public List<ServerPlayerEntity> filter(Iterable<ServerPlayerEntity> players, String permission, int defaultLevel) {
+        Snapshot snapshot = this.snapshot;
+        PermissionValue[] values = new PermissionValue[Snapshot.LEVELS];
+        List<ServerPlayerEntity> list = new ArrayList<>();
+        for (ServerPlayerEntity player : players) {
+            int playerLevel = ((UserContextHolder) player).permissionsApi_getCachedPermissionLevel();
+            int level = Snapshot.getIndex(playerLevel);
+            PermissionValue value = values[level];
+            if (value == null) {
+                value = values[level] = snapshot.check(level, permission);
+            }
+
+            if (value.toBoolean(playerLevel >= defaultLevel)) {
+                list.add(player);
             }
         }
         return list;
     }
 
+    @Override
+    public PermissionValue hasAnyUnder(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return this.getPermissionTree(user).hasAnyUnder(parentPermission);
+    }
+
+    @Override
+    public List<String> getList(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return this.getPermissionTree(user).getList(value);
+    }
+
     @Override
     public List<String> getList(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return this.getPermissionTree(user).getList(parentPermission, value);
+    }
+
+    @Override
+    public List<String> getListRegistered(UserContext user, String parentPermission, PermissionValue value) {
+        long[] nodes = PermissionRegistry.getNodesUnder(parentPermission);
+        NodeBits bits = this.snapshot.getNodeBits(user.getPermissionLevel());
         List<String> list = new ArrayList<>();
-        String basePermission = parentPermission + ".";
-        int baseLength = basePermission.length();
-
-        for (Object2BooleanMap.Entry<String> n : this.getPermissionMap(user).object2BooleanEntrySet()) {
-            if (n.getKey().startsWith(basePermission) && value.pass(n.getBooleanValue())) {
-                String key = n.getKey().substring(baseLength);
-                if (!key.isEmpty()) {
-                    list.add(key);
-                }
+
+        // Nodes registered after bits were created are skipped, as they weren't resolved yet
+        int words = Math.min(nodes.length, bits.allowed().length);
+        for (int i = 0; i < words; i++) {
+            long word = nodes[i] & switch (value) {
+                case TRUE -> bits.allowed()[i];
+                case FALSE -> bits.denied()[i];
+                case DEFAULT -> bits.allowed()[i] | bits.denied()[i];
+            };
+
+            while (word != 0) {
+                list.add(PermissionRegistry.getNode((i << 6) + Long.numberOfTrailingZeros(word)).getPermission().substring(parentPermission.length() + 1));
+                word &= word - 1;
             }
         }
         return list;
@@ -229,27 +238,12 @@ public class VanillaPermissionProvider implements PermissionProvider {
 
     @Override
     public Map<String, PermissionValue> getAll(UserContext user, @Nullable ServerWorld world) {
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Object2BooleanMap.Entry<String> entry : this.getPermissionMap(user).object2BooleanEntrySet()) {
-            map.put(entry.getKey(), PermissionValue.of(entry.getBooleanValue()));
-        }
-
-        return map;
+        return this.getPermissionTree(user).getAll();
     }
 
     @Override
     public Map<String, PermissionValue> getAll(UserContext user, String parentPermission, @Nullable ServerWorld world) {
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        String basePermission = parentPermission + ".";
-        int baseLength = basePermission.length();
-
-        for (Object2BooleanMap.Entry<String> entry : this.getPermissionMap(user).object2BooleanEntrySet()) {
-            if (entry.getKey().startsWith(basePermission)) {
-                map.put(entry.getKey().substring(baseLength), PermissionValue.of(entry.getBooleanValue()));
-            }
-        }
-
-        return map;
+        return this.getPermissionTree(user).getAll(parentPermission);
     }
 
     @Override
@@ -320,137 +314,202 @@ public class VanillaPermissionProvider implements PermissionProvider {
 
     @Override
     public PermissionValue checkGroup(String group, @Nullable ServerWorld world, String permission) {
-        var map = getPermissionMap(group);
-        if (permission.endsWith(".?")) {
-            String substring = permission.substring(0, permission.length() - 2);
+        return this.snapshot.check(getLevel(group), permission);
+    }
 
-            return this.getListGroup(group, substring, PermissionValue.TRUE).size() > 0
-                    ? PermissionValue.TRUE
-                    : this.getListGroup(group, substring, PermissionValue.FALSE).size() > 0
-                    ? PermissionValue.FALSE : PermissionValue.DEFAULT;
-        } else {
-            if (map.containsKey(permission)) {
-                return PermissionValue.of(map.getBoolean(permission));
-            } else {
-                String[] parts = permission.split("\\.");
-                int length = parts.length - 1;
-                while (length != 0) {
-                    StringBuilder key = new StringBuilder();
-                    for (int x = 0; x < length; x++) {
-                        key.append(parts[x]).append(".");
-                    }
-                    key.append("*");
-
-                    length--;
-                    if (map.containsKey(key.toString())) {
-                        return PermissionValue.of(map.getBoolean(key.toString()));
-                    }
-                }
-                return PermissionValue.DEFAULT;
-            }
-        }
+    @Override
+    public PermissionValue hasAnyUnderGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        return this.getPermissionTree(group).hasAnyUnder(parentPermission);
     }
 
     @Override
     public List<String> getListGroup(String group, @Nullable ServerWorld world, PermissionValue value) {
-        List<String> list = new ArrayList<>();
-        for (Object2BooleanMap.Entry<String> n : this.getPermissionMap(group).object2BooleanEntrySet()) {
-            if (value.pass(n.getBooleanValue())) {
-                String key = n.getKey();
-                list.add(key);
-            }
-        }
-        return list;
+        return this.getPermissionTree(group).getList(value);
     }
 
     @Override
     public List<String> getListGroup(String group, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
-        List<String> list = new ArrayList<>();
-        String basePermission = parentPermission + ".";
-        int baseLength = basePermission.length();
-
-        for (Object2BooleanMap.Entry<String> n : this.getPermissionMap(group).object2BooleanEntrySet()) {
-            if (n.getKey().startsWith(basePermission) && value.pass(n.getBooleanValue())) {
-                String key = n.getKey().substring(baseLength);
-                if (!key.isEmpty()) {
-                    list.add(key);
-                }
-            }
-        }
-        return list;
+        return this.getPermissionTree(group).getList(parentPermission, value);
     }
 
     @Override
     public List<String> getListNonInheritedGroup(String group, @Nullable ServerWorld world, PermissionValue value) {
-        List<String> list = new ArrayList<>();
-        for (Object2BooleanMap.Entry<String> n : this.getPermissionMap(group).object2BooleanEntrySet()) {
-            if (value.pass(n.getBooleanValue())) {
-                String key = n.getKey();
-                list.add(key);
-            }
-        }
-        return list;
+        return this.getPermissionTreeNon(group).getList(value);
     }
 
     @Override
     public List<String> getListNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
-        List<String> list = new ArrayList<>();
-        String basePermission = parentPermission + ".";
-        int baseLength = basePermission.length();
-
-        for (Object2BooleanMap.Entry<String> n : this.getPermissionMap(group).object2BooleanEntrySet()) {
-            if (n.getKey().startsWith(basePermission) && value.pass(n.getBooleanValue())) {
-                String key = n.getKey().substring(baseLength);
-                if (!key.isEmpty()) {
-                    list.add(key);
-                }
-            }
-        }
-        return list;
+        return this.getPermissionTreeNon(group).getList(parentPermission, value);
     }
 
     @Override
     public Map<String, PermissionValue> getAllGroup(String group, @Nullable ServerWorld world) {
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Object2BooleanMap.Entry<String> entry : this.getPermissionMap(group).object2BooleanEntrySet()) {
-            map.put(entry.getKey(), PermissionValue.of(entry.getBooleanValue()));
-        }
-
-        return map;
+        return this.getPermissionTree(group).getAll();
     }
 
     @Override
     public Map<String, PermissionValue> getAllGroup(String group, String parentPermission, @Nullable ServerWorld world) {
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        String basePermission = parentPermission + ".";
-        int baseLength = basePermission.length();
+        return this.getPermissionTree(group).getAll(parentPermission);
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllNonInheritedGroup(String group, @Nullable ServerWorld world) {
+        return this.getPermissionTreeNon(group).getAll();
+    }
+
+    @Override
+    public Map<String, PermissionValue> getAllNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        return this.getPermissionTreeNon(group).getAll(parentPermission);
+    }
+
+    /**
+     * Immutable permissions compiled from config, with separate tree for every operator level
+     */
+    private static final class Snapshot {
+        private static final int LEVELS = 5;
+        private static final int MAX_MEMO_SIZE = 16384;
+
+        private final PermissionTree[] trees;
+        private final PermissionTree[] treesNon;
+        // Resolved values of checks per level, or null if memoizing is disabled
+        private final Map<String, PermissionValue>[] memos;
+        // Resolved values of registered permissions per level, created on first use
+        private final NodeBits[] nodeBits = new NodeBits[LEVELS];
+
+        private Snapshot(PermissionTree[] trees, PermissionTree[] treesNon, Map<String, PermissionValue>[] memos) {
+            this.trees = trees;
+            this.treesNon = treesNon;
+            this.memos = memos;
+        }
+
+        private static Snapshot of(VanillaConfig config) {
+            List<Map<String, Boolean>> levels = List.of(config.defaultPermissions, config.level1Permissions,
+                    config.level2Permissions, config.level3Permissions, config.level4Permissions);
 
-        for (Object2BooleanMap.Entry<String> entry : this.getPermissionMap(group).object2BooleanEntrySet()) {
-            if (entry.getKey().startsWith(basePermission)) {
-                map.put(entry.getKey().substring(baseLength), PermissionValue.of(entry.getBooleanValue()));
+            PermissionTree[] trees = new PermissionTree[levels.size()];
+            PermissionTree[] treesNon = new PermissionTree[levels.size()];
+            Map<String, Boolean> inherited = new HashMap<>();
+
+            for (int i = 0; i < levels.size(); i++) {
+                inherited.putAll(levels.get(i));
+                trees[i] = PermissionTree.of(inherited);
+                treesNon[i] = i == 0 ? trees[0] : PermissionTree.of(levels.get(i));
+            }
+
+            Map<String, PermissionValue>[] memos = null;
+            if (config.memoizeChecks) {
+                memos = new Map[LEVELS];
+                for (int i = 0; i < LEVELS; i++) {
+                    memos[i] = new ConcurrentHashMap<>();
+                }
             }
+
+            return new Snapshot(trees, treesNon, memos);
         }
 
-        return map;
-    }
+        /**
+         * Returns index of tree used for operator level, with unknown levels using default one
+         */
+        private static int getIndex(int level) {
+            return level >= 1 && level < LEVELS ? level : 0;
+        }
 
-    @Override
-    public Map<String, PermissionValue> getAllNonInheritedGroup(String group, @Nullable ServerWorld world) {
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Object2BooleanMap.Entry<String> entry : this.getPermissionMapNon(group).object2BooleanEntrySet()) {
-            map.put(entry.getKey(), PermissionValue.of(entry.getBooleanValue()));
+        private PermissionTree getTree(int level) {
+            return this.trees[getIndex(level)];
         }
 
-        return map;
+        private PermissionTree getTreeNon(int level) {
+            return this.treesNon[getIndex(level)];
+        }
+
+        /**
+         * Returns resolved values of registered permissions for operator level.
+         * They are created again, if more permissions were registered since then
+         */
+        private NodeBits getNodeBits(int level) {
+            int index = getIndex(level);
+            int nodeCount = PermissionRegistry.getNodeCount();
+            NodeBits bits = this.nodeBits[index];
+
+            if (bits == null || bits.nodeCount() != nodeCount) {
+                bits = NodeBits.of(this.trees[index], nodeCount);
+                this.nodeBits[index] = bits;
+            }
+            return bits;
+        }
+
+        /**
+         * Resolves permission for operator level. With memoizing enabled, resolved values
+         * (including wildcard and default ones) are stored, so repeated checks only need a single lookup
+         */
+        private PermissionValue check(int level, String permission) {
+            int index = getIndex(level);
+            if (this.memos == null) {
+                return VanillaPermissionProvider.check(this.trees[index], permission);
+            }
+
+            Map<String, PermissionValue> memo = this.memos[index];
+            PermissionValue value = memo.get(permission);
+            if (value == null) {
+                value = VanillaPermissionProvider.check(this.trees[index], permission);
+                if (memo.size() < MAX_MEMO_SIZE) {
+                    memo.put(permission, value);
+                }
+            }
+            return value;
+        }
+
+        private PermissionValue check(int level, PermissionKey permission) {
+            int nodeId = permission.getNodeId();
+            if (nodeId != -1) {
+                NodeBits bits = this.getNodeBits(level);
+                if (nodeId < bits.nodeCount()) {
+                    return bits.get(nodeId);
+                }
+            }
+
+            int index = getIndex(level);
+            Map<String, PermissionValue> memo = this.memos != null ? this.memos[index] : null;
+            PermissionValue value = memo != null ? memo.get(permission.getPermission()) : null;
+
+            if (value == null) {
+                PermissionTree tree = this.trees[index];
+                value = permission.isAnyChild() ? tree.hasAnyUnderParent(permission) : tree.get(permission);
+                if (memo != null && memo.size() < MAX_MEMO_SIZE) {
+                    memo.put(permission.getPermission(), value);
+                }
+            }
+            return value;
+        }
     }
 
-    @Override
-    public Map<String, PermissionValue> getAllNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world) {
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Object2BooleanMap.Entry<String> entry : this.getPermissionMapNon(group).object2BooleanEntrySet()) {
-            map.put(entry.getKey(), PermissionValue.of(entry.getBooleanValue()));
+    /**
+     * Bitsets of registered permissions (by their node id), which resolve to true or false
+     */
+    private record NodeBits(int nodeCount, long[] allowed, long[] denied) {
+        private static NodeBits of(PermissionTree tree, int nodeCount) {
+            long[] allowed = new long[PermissionRegistry.getWordCount(nodeCount)];
+            long[] denied = new long[allowed.length];
+
+            for (int i = 0; i < nodeCount; i++) {
+                PermissionValue value = tree.get(PermissionRegistry.getNode(i));
+                if (value == PermissionValue.TRUE) {
+                    allowed[i >>> 6] |= 1L << i;
+                } else if (value == PermissionValue.FALSE) {
+                    denied[i >>> 6] |= 1L << i;
+                }
+            }
+            return new NodeBits(nodeCount, allowed, denied);
         }
 
-        return map;
+        private PermissionValue get(int nodeId) {
+            long bit = 1L << nodeId;
+            if ((this.allowed[nodeId >>> 6] & bit) != 0) {
+                return PermissionValue.TRUE;
+            } else if ((this.denied[nodeId >>> 6] & bit) != 0) {
+                return PermissionValue.FALSE;
+            }
+            return PermissionValue.DEFAULT;
+        }
     }
 }
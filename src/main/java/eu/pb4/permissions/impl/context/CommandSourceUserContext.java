@@ -13,6 +13,23 @@ import org.jetbrains.annotations.Nullable;
 import java.util.UUID;
 
 public record CommandSourceUserContext(ServerCommandSource source, ServerWorld world) implements UserContext {
+    // Last created context, as the same source is usually checked many times while its command runs
+    private static volatile CommandSourceUserContext last = null;
+
+    /**
+     * Returns context of source, reusing last one if it was created for the same source and world
+     */
+    public static CommandSourceUserContext of(ServerCommandSource source, ServerWorld world) {
+        CommandSourceUserContext context = last;
+        if (context != null && context.source == source && context.world == world) {
+            return context;
+        }
+
+        context = new CommandSourceUserContext(source, world);
+        last = context;
+        return context;
+    }
+
     @Override
     public int getPermissionLevel() {
         return ((ServerCommandSourceAccessor) this.source).permissionsApi_getPermissionLevel();
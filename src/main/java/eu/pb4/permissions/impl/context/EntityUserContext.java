@@ -2,7 +2,6 @@ package eu.pb4.permissions.impl.context;
 
 import com.mojang.authlib.GameProfile;
 import eu.pb4.permissions.api.v0.UserContext;
-import eu.pb4.permissions.mixin.EntityAccessor;
 import net.minecraft.entity.Entity;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -11,24 +10,27 @@ import org.jetbrains.annotations.Nullable;
 import java.util.UUID;
 
 public class EntityUserContext implements UserContext {
-    private final GameProfile gameProfile;
     private final Entity entity;
     private final ServerWorld world;
+    private GameProfile gameProfile;
 
     public EntityUserContext(Entity entity, ServerWorld world) {
         this.entity = entity;
-        this.gameProfile = new GameProfile(this.entity.getUuid(), this.entity.getEntityName());
         this.world = world;
     }
 
 
     @Override
     public int getPermissionLevel() {
-        return ((EntityAccessor) this.entity).permissionsApi_getPermissionLevel();
+        return ((UserContextHolder) this.entity).permissionsApi_getCachedPermissionLevel();
     }
 
     @Override
     public GameProfile getGameProfile() {
+        // Created only when needed, as most checks don't use it
+        if (this.gameProfile == null) {
+            this.gameProfile = new GameProfile(this.entity.getUuid(), this.entity.getEntityName());
+        }
         return this.gameProfile;
     }
 
@@ -0,0 +1,23 @@
+package eu.pb4.permissions.impl.context;
+
+/**
+ * Tracks changes of operator list and of cheats being allowed (used by integrated and LAN servers),
+ * so entities can keep their permission level instead of looking it up on every check
+ */
+public final class PermissionLevelCache {
+    private static volatile int generation = 0;
+
+    private PermissionLevelCache() {
+    }
+
+    public static int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Marks all cached permission levels as outdated
+     */
+    public static synchronized void invalidateAll() {
+        generation++;
+    }
+}
@@ -2,7 +2,6 @@ package eu.pb4.permissions.impl.context;
 
 import com.mojang.authlib.GameProfile;
 import eu.pb4.permissions.api.v0.UserContext;
-import eu.pb4.permissions.mixin.EntityAccessor;
 import net.minecraft.entity.Entity;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -14,7 +13,7 @@ public record PlayerUserContext(ServerPlayerEntity player, ServerWorld world) im
 
     @Override
     public int getPermissionLevel() {
-        return ((EntityAccessor) this.player).permissionsApi_getPermissionLevel();
+        return ((UserContextHolder) this.player).permissionsApi_getCachedPermissionLevel();
     }
 
     @Override
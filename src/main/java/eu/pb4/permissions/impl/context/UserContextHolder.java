@@ -0,0 +1,13 @@
+package eu.pb4.permissions.impl.context;
+
+import eu.pb4.permissions.api.v0.UserContext;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * Implemented on entities by mixin, to reuse the same UserContext while they stay in one world
+ */
+public interface UserContextHolder {
+    UserContext permissionsApi_getUserContext(ServerWorld world);
+
+    int permissionsApi_getCachedPermissionLevel();
+}
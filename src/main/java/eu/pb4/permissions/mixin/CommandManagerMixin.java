@@ -0,0 +1,38 @@
+package eu.pb4.permissions.mixin;
+
+import com.mojang.brigadier.tree.CommandNode;
+import eu.pb4.permissions.impl.CommandTreeMemo;
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.util.Map;
+
+@Mixin(CommandManager.class)
+public class CommandManagerMixin {
+    @Shadow
+    private void makeTreeForSource(CommandNode<ServerCommandSource> tree, CommandNode<CommandSource> result, ServerCommandSource source, Map<CommandNode<ServerCommandSource>, CommandNode<CommandSource>> resultNodes) {
+        throw new AssertionError();
+    }
+
+    @Redirect(method = "sendCommandTree", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/command/CommandManager;makeTreeForSource(Lcom/mojang/brigadier/tree/CommandNode;Lcom/mojang/brigadier/tree/CommandNode;Lnet/minecraft/server/command/ServerCommandSource;Ljava/util/Map;)V"))
+    private void makeTreeWithPermissionMemo(CommandManager manager, CommandNode<ServerCommandSource> tree, CommandNode<CommandSource> result, ServerCommandSource source, Map<CommandNode<ServerCommandSource>, CommandNode<CommandSource>> resultNodes) {
+        if (!(source.getEntity() instanceof ServerPlayerEntity player)) {
+            this.makeTreeForSource(tree, result, source, resultNodes);
+            return;
+        }
+
+        // Memo is always closed, so it can't leak into later checks if building tree fails
+        CommandTreeMemo.start(player);
+        try {
+            this.makeTreeForSource(tree, result, source, resultNodes);
+        } finally {
+            CommandTreeMemo.end();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package eu.pb4.permissions.mixin;
+
+import eu.pb4.permissions.api.v0.UserContext;
+import eu.pb4.permissions.impl.context.EntityUserContext;
+import eu.pb4.permissions.impl.context.PermissionLevelCache;
+import eu.pb4.permissions.impl.context.PlayerUserContext;
+import eu.pb4.permissions.impl.context.UserContextHolder;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(Entity.class)
+public class EntityMixin implements UserContextHolder {
+    @Unique
+    private UserContext permissionsApi_userContext;
+    // Generation of PermissionLevelCache in upper bits and level in lower ones, so both are always read together
+    @Unique
+    private volatile long permissionsApi_permissionLevel = -1;
+
+    @Override
+    public UserContext permissionsApi_getUserContext(ServerWorld world) {
+        UserContext context = this.permissionsApi_userContext;
+        if (context != null && context.getWorld() == world) {
+            return context;
+        }
+
+        Entity entity = (Entity) (Object) this;
+        context = entity instanceof ServerPlayerEntity player ? new PlayerUserContext(player, world) : new EntityUserContext(entity, world);
+
+        // Only context of entity's current world is kept, so checks for other worlds don't replace it
+        if (world == entity.getEntityWorld()) {
+            this.permissionsApi_userContext = context;
+        }
+        return context;
+    }
+
+    @Override
+    public int permissionsApi_getCachedPermissionLevel() {
+        int generation = PermissionLevelCache.getGeneration();
+        long cached = this.permissionsApi_permissionLevel;
+        if ((int) (cached >>> 32) == generation) {
+            return (int) cached;
+        }
+
+        int level = ((EntityAccessor) this).permissionsApi_getPermissionLevel();
+        this.permissionsApi_permissionLevel = ((long) generation << 32) | (level & 0xFFFFFFFFL);
+        return level;
+    }
+}
@@ -1,6 +1,7 @@
 package eu.pb4.permissions.mixin;
 
 import eu.pb4.permissions.PermissionsAPIMod;
+import eu.pb4.permissions.impl.CommandTreeUpdater;
 import eu.pb4.permissions.impl.PermissionsImpl;
 import eu.pb4.permissions.impl.ConfigHelper;
 import eu.pb4.permissions.impl.VanillaPermissionProvider;
@@ -13,6 +14,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 @Mixin(MinecraftServer.class)
 public class MinecraftServerMixin {
@@ -21,10 +23,16 @@ public class MinecraftServerMixin {
         PermissionsImpl.setup((MinecraftServer) (Object) this);
     }
 
+    @Inject(method = "tick", at = @At("TAIL"))
+    private void updateCommandTrees(BooleanSupplier shouldKeepTicking, CallbackInfo info) {
+        CommandTreeUpdater.tick((MinecraftServer) (Object) this);
+    }
+
     @Inject(method = "reloadResources", at = @At("HEAD"))
     private void startResourceReload(Collection<String> collection, CallbackInfoReturnable<CompletableFuture<Void>> cir) {
         if (VanillaPermissionProvider.getInstance() != null) {
-            VanillaPermissionProvider.getInstance().setConfig(ConfigHelper.getConfig());
+            // Vanilla sends command trees to all players after reload
+            CommandTreeUpdater.runWithoutResend(() -> VanillaPermissionProvider.getInstance().setConfig(ConfigHelper.getConfig()));
             PermissionsAPIMod.LOGGER.info("Permissions reloaded!");
         }
     }
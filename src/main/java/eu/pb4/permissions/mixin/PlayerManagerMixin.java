@@ -0,0 +1,30 @@
+package eu.pb4.permissions.mixin;
+
+import eu.pb4.permissions.impl.CachingPermissionProvider;
+import eu.pb4.permissions.impl.CommandTreeUpdater;
+import eu.pb4.permissions.impl.context.PermissionLevelCache;
+import net.minecraft.server.PlayerManager;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(PlayerManager.class)
+public class PlayerManagerMixin {
+    @Inject(method = "remove", at = @At("TAIL"))
+    private void removeCachedPermissions(ServerPlayerEntity player, CallbackInfo info) {
+        CachingPermissionProvider.onPlayerDisconnected(player.getUuid());
+    }
+
+    @Inject(method = "sendCommandTree(Lnet/minecraft/server/network/ServerPlayerEntity;)V", at = @At("HEAD"))
+    private void skipPendingCommandTree(ServerPlayerEntity player, CallbackInfo info) {
+        CommandTreeUpdater.onCommandTreeSent(player);
+    }
+
+    @Inject(method = "setCheatsAllowed", at = @At("TAIL"))
+    private void invalidatePermissionLevels(boolean cheatsAllowed, CallbackInfo info) {
+        // Level of host (and everyone else on LAN) depends on cheats being allowed, not only on operator list
+        PermissionLevelCache.invalidateAll();
+    }
+}
@@ -0,0 +1,11 @@
+package eu.pb4.permissions.mixin;
+
+import net.minecraft.server.ServerConfigEntry;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ServerConfigEntry.class)
+public interface ServerConfigEntryAccessor {
+    @Accessor("key")
+    Object permissionsApi_getKey();
+}
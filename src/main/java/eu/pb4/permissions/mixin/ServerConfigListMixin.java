@@ -0,0 +1,44 @@
+package eu.pb4.permissions.mixin;
+
+import com.mojang.authlib.GameProfile;
+import eu.pb4.permissions.api.v0.PermissionChangeEvent;
+import eu.pb4.permissions.impl.context.PermissionLevelCache;
+import net.minecraft.server.OperatorList;
+import net.minecraft.server.ServerConfigEntry;
+import net.minecraft.server.ServerConfigList;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerConfigList.class)
+public class ServerConfigListMixin {
+    @Inject(method = "add", at = @At("TAIL"))
+    private void onOperatorAdded(ServerConfigEntry<?> entry, CallbackInfo info) {
+        this.permissionsApi_onOperatorsChanged(((ServerConfigEntryAccessor) entry).permissionsApi_getKey());
+    }
+
+    @Inject(method = "remove(Ljava/lang/Object;)V", at = @At("TAIL"))
+    private void onOperatorRemoved(Object key, CallbackInfo info) {
+        this.permissionsApi_onOperatorsChanged(key);
+    }
+
+    @Inject(method = "load", at = @At("TAIL"))
+    private void onOperatorsLoaded(CallbackInfo info) {
+        this.permissionsApi_onOperatorsChanged(null);
+    }
+
+    @Unique
+    private void permissionsApi_onOperatorsChanged(Object key) {
+        if ((Object) this instanceof OperatorList) {
+            PermissionLevelCache.invalidateAll();
+
+            if (key instanceof GameProfile profile && profile.getId() != null) {
+                PermissionChangeEvent.fireUser(profile.getId());
+            } else {
+                PermissionChangeEvent.fireAll();
+            }
+        }
+    }
+}
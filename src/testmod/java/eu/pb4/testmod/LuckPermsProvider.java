@@ -1,38 +1,220 @@
 package eu.pb4.testmod;
 
+import com.mojang.authlib.GameProfile;
+import eu.pb4.permissions.api.v0.PermissionChangeEvent;
 import eu.pb4.permissions.api.v0.PermissionProvider;
 import eu.pb4.permissions.api.v0.PermissionValue;
 import eu.pb4.permissions.api.v0.UserContext;
+import eu.pb4.permissions.api.v0.ValueAdapter;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.cacheddata.CachedPermissionData;
 import net.luckperms.api.context.ContextSet;
 import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.context.ContextUpdateEvent;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.group.GroupDeleteEvent;
+import net.luckperms.api.event.group.GroupLoadEvent;
+import net.luckperms.api.event.node.NodeAddEvent;
+import net.luckperms.api.event.node.NodeClearEvent;
+import net.luckperms.api.event.node.NodeRemoveEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.event.user.UserLoadEvent;
+import net.luckperms.api.event.user.UserUnloadEvent;
+import net.luckperms.api.model.PermissionHolder;
 import net.luckperms.api.model.group.Group;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
+import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.Flag;
 import net.luckperms.api.query.QueryOptions;
 import net.luckperms.api.util.Tristate;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.registry.RegistryKey;
+import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class LuckPermsProvider implements PermissionProvider {
-    private LuckPerms luckPerms = null;
+    private static final int MAX_OFFLINE_USERS = 256;
+    private static final long OFFLINE_USER_LIFETIME = TimeUnit.MINUTES.toMillis(5);
+
+    private volatile LuckPerms luckPerms = null;
+    // Recently queried offline users, kept as LuckPerms unloads them shortly after loading
+    private final Map<UUID, OfflineUser> offlineUsers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, OfflineUser> eldest) {
+            if (this.size() > MAX_OFFLINE_USERS) {
+                LuckPermsProvider.this.userQueries.remove(eldest.getKey());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<UUID, CompletableFuture<User>> loadingUsers = new ConcurrentHashMap<>();
+    // Removed with user, once LuckPerms unloads it and it isn't kept as offline user
+    private final Map<UUID, Map<QueryKey, QueryOptions>> userQueries = new ConcurrentHashMap<>();
+    // Resolved groups with their QueryOptions, so lookups of group don't go through GroupManager every time
+    private final Map<String, CachedGroup> groups = new ConcurrentHashMap<>();
 
     protected LuckPerms getLuckPerms() {
+        LuckPerms luckPerms = this.luckPerms;
         if (luckPerms == null) {
-            luckPerms = net.luckperms.api.LuckPermsProvider.get();
+            synchronized (this) {
+                luckPerms = this.luckPerms;
+                if (luckPerms == null) {
+                    luckPerms = net.luckperms.api.LuckPermsProvider.get();
+                    this.registerEvents(luckPerms);
+                    this.luckPerms = luckPerms;
+                }
+            }
         }
         return luckPerms;
     }
 
-    protected @Nullable User getUser(UserContext context) {
+    /**
+     * Drops cached QueryOptions, once data or contexts they were created from change
+     * and passes changes of users and groups to PermissionChangeEvent.
+     * Recalculations aren't passed, as they follow node changes, loads and context updates, which carry more details
+     */
+    protected void registerEvents(LuckPerms luckPerms) {
+        EventBus eventBus = luckPerms.getEventBus();
+        eventBus.subscribe(UserDataRecalculateEvent.class, event -> {
+            UUID uuid = event.getUser().getUniqueId();
+            this.updateOfflineUser(event.getUser());
+            this.userQueries.remove(uuid);
+        });
+        eventBus.subscribe(GroupDataRecalculateEvent.class, event -> {
+            String group = event.getGroup().getName();
+            this.groups.remove(group);
+        });
+        eventBus.subscribe(UserLoadEvent.class, event -> PermissionChangeEvent.fireUser(event.getUser().getUniqueId()));
+        eventBus.subscribe(GroupLoadEvent.class, event -> {
+            String group = event.getGroup().getName();
+            this.groups.remove(group);
+            PermissionChangeEvent.fire(null, null, group);
+        });
+        eventBus.subscribe(GroupDeleteEvent.class, event -> {
+            this.groups.remove(event.getGroupName());
+            PermissionChangeEvent.fire(null, null, event.getGroupName());
+        });
+        eventBus.subscribe(NodeAddEvent.class, event -> this.fireNodeChange(event.getTarget(), event.getNode()));
+        eventBus.subscribe(NodeRemoveEvent.class, event -> this.fireNodeChange(event.getTarget(), event.getNode()));
+        eventBus.subscribe(NodeClearEvent.class, event -> this.fireNodeChange(event.getTarget(), null));
+        eventBus.subscribe(UserUnloadEvent.class, event -> {
+            // Users kept as offline ones are still queried, so their options are removed once they leave that cache
+            UUID uuid = event.getUser().getUniqueId();
+            synchronized (this.offlineUsers) {
+                if (!this.offlineUsers.containsKey(uuid)) {
+                    this.userQueries.remove(uuid);
+                }
+            }
+        });
+        eventBus.subscribe(ContextUpdateEvent.class, event -> event.getSubject(ServerPlayerEntity.class).ifPresent(player -> {
+            this.userQueries.remove(player.getUuid());
+            PermissionChangeEvent.fireUser(player.getUuid());
+        }));
+    }
+
+    /**
+     * Fires PermissionChangeEvent for changed node of user or group
+     *
+     * @param target User or group, which node was changed
+     * @param node   Changed node or null if all of them could change
+     */
+    protected void fireNodeChange(PermissionHolder target, @Nullable Node node) {
+        UUID uuid = target instanceof User user ? user.getUniqueId() : null;
+        String group = target instanceof Group changedGroup ? changedGroup.getName() : null;
+
+        if (node instanceof InheritanceNode inheritance) {
+            // Any permission of inherited group can change
+            PermissionChangeEvent.fire(uuid, null, uuid != null ? inheritance.getGroupName() : group);
+        } else {
+            PermissionChangeEvent.fire(uuid, node != null ? node.getKey() : null, group);
+        }
+    }
+
+    /**
+     * Starts loading user in background, so later checks of it don't need to wait for storage.
+     * Loaded users are kept for a while, even after LuckPerms unloads them
+     *
+     * @param uuid UUID of user
+     * @return Future of loaded user
+     */
+    public CompletableFuture<User> preload(UUID uuid) {
+        CompletableFuture<User> future = this.loadingUsers.get(uuid);
+        if (future != null) {
+            return future;
+        }
+
+        CompletableFuture<User> created = new CompletableFuture<>();
+        future = this.loadingUsers.putIfAbsent(uuid, created);
+        if (future != null) {
+            return future;
+        }
+
+        CompletableFuture<User> loading;
+        try {
+            loading = getLuckPerms().getUserManager().loadUser(uuid);
+        } catch (Exception e) {
+            // For example if LuckPerms isn't loaded yet or was shut down, so later calls can try again
+            this.loadingUsers.remove(uuid);
+            created.completeExceptionally(e);
+            return created;
+        }
+
+        loading.whenComplete((user, throwable) -> {
+            if (user != null) {
+                synchronized (this.offlineUsers) {
+                    this.offlineUsers.put(uuid, new OfflineUser(user, System.currentTimeMillis()));
+                }
+            }
+            this.loadingUsers.remove(uuid);
+
+            if (throwable != null) {
+                created.completeExceptionally(throwable);
+            } else {
+                // Checks made before it was loaded returned default values, which is passed on by UserLoadEvent
+                created.complete(user);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Starts loading user in background, so later checks of it don't need to wait for storage.
+     *
+     * @param profile GameProfile of user
+     * @return Future of loaded user
+     */
+    public CompletableFuture<User> preload(GameProfile profile) {
+        return this.preload(profile.getId());
+    }
+
+    /**
+     * Replaces cached offline user with newer instance of it, so changes of it are visible before it's loaded again
+     */
+    protected void updateOfflineUser(User user) {
+        synchronized (this.offlineUsers) {
+            if (this.offlineUsers.containsKey(user.getUniqueId())) {
+                this.offlineUsers.put(user.getUniqueId(), new OfflineUser(user, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Returns user if it's available without waiting for storage
+     */
+    protected @Nullable User getLoadedUser(UserContext context) {
         if (context.getPlayerEntity() != null) {
             return getLuckPerms().getPlayerAdapter(ServerPlayerEntity.class).getUser(context.getPlayerEntity());
         }
@@ -42,29 +224,172 @@ public class LuckPermsProvider implements PermissionProvider {
             return user;
         }
 
-        try {
-            return getLuckPerms().getUserManager().loadUser(context.getUuid()).get(1, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            return null;
+        OfflineUser offlineUser;
+        synchronized (this.offlineUsers) {
+            offlineUser = this.offlineUsers.get(context.getUuid());
         }
+
+        if (offlineUser != null) {
+            if (System.currentTimeMillis() - offlineUser.loadTime() > OFFLINE_USER_LIFETIME) {
+                // Outdated data is still returned, while fresh one is loaded
+                this.preload(context.getUuid());
+            }
+            return offlineUser.user();
+        }
+        return null;
+    }
+
+    /**
+     * Returns user without blocking. If it isn't loaded yet, it starts loading and returns null,
+     * which makes lookups return default values until it's available
+     */
+    protected @Nullable User getUser(UserContext context) {
+        User user = getLoadedUser(context);
+        if (user == null) {
+            this.preload(context.getUuid());
+        }
+        return user;
+    }
+
+    protected CompletableFuture<User> getUserAsync(UserContext context) {
+        User user = getLoadedUser(context);
+        if (user != null) {
+            return CompletableFuture.completedFuture(user);
+        }
+
+        return this.preload(context.getUuid()).exceptionally(e -> null);
+    }
+
+    /**
+     * Runs lookup once user is loaded, so it doesn't block on loading it
+     */
+    protected <T> CompletableFuture<T> afterLoad(UserContext context, Supplier<T> lookup, T fallback) {
+        return getUserAsync(context).thenApply(lpUser -> lpUser != null ? lookup.get() : fallback);
     }
 
     protected QueryOptions getQuery(User user, ServerWorld world, boolean inheritance) {
-        ContextSet contextSet = user.getQueryOptions().context().mutableCopy();
-        if (world != null) {
-            contextSet = ImmutableContextSet.builder().addAll(contextSet).add("world", world.getRegistryKey().getValue().toString()).build();
+        QueryKey key = QueryKey.of(world, inheritance);
+        Map<QueryKey, QueryOptions> queries = this.userQueries.computeIfAbsent(user.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+        QueryOptions options = queries.get(key);
+
+        if (options == null) {
+            options = createQuery(user.getQueryOptions(), user.getQueryOptions().context(), key);
+            queries.put(key, options);
         }
-        return user.getQueryOptions().toBuilder().context(contextSet).flag(Flag.RESOLVE_INHERITANCE, inheritance).build();
+        return options;
+    }
+
+    protected @Nullable QueryOptions getQuery(String group, ServerWorld world, boolean inheritance) {
+        CachedGroup cached = this.getCachedGroup(group);
+        return cached != null ? cached.getQuery(QueryKey.of(world, inheritance)) : null;
+    }
+
+    /**
+     * Returns group, without looking it up in GroupManager if it was already used
+     */
+    protected @Nullable Group getGroup(String group) {
+        CachedGroup cached = this.getCachedGroup(group);
+        return cached != null ? cached.group() : null;
+    }
+
+    /**
+     * Returns permission data of group, resolved with cached group and QueryOptions
+     */
+    protected @Nullable CachedPermissionData getGroupData(String group, @Nullable ServerWorld world, boolean inheritance) {
+        CachedGroup cached = this.getCachedGroup(group);
+        return cached != null ? cached.group().getCachedData().getPermissionData(cached.getQuery(QueryKey.of(world, inheritance))) : null;
     }
 
-    protected QueryOptions getQuery(String group, ServerWorld world, boolean inheritance) {
-        ContextSet contextSet = ImmutableContextSet.empty();
-        if (world != null) {
-            contextSet = ImmutableContextSet.builder().addAll(contextSet).add("world", world.getRegistryKey().getValue().toString()).build();
+    private @Nullable CachedGroup getCachedGroup(String name) {
+        CachedGroup cached = this.groups.get(name);
+        if (cached == null) {
+            Group group = getLuckPerms().getGroupManager().getGroup(name);
+            if (group == null) {
+                return null;
+            }
+
+            cached = new CachedGroup(group, new ConcurrentHashMap<>());
+            this.groups.put(name, cached);
         }
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
+        return cached;
+    }
 
-        return group1 != null ? group1.getQueryOptions().toBuilder().context(contextSet).flag(Flag.RESOLVE_INHERITANCE, inheritance).build() : null;
+    private static QueryOptions createQuery(QueryOptions base, ContextSet contextSet, QueryKey key) {
+        if (key.world() != null) {
+            contextSet = ImmutableContextSet.builder().addAll(contextSet).add("world", key.world().getValue().toString()).build();
+        }
+        return base.toBuilder().context(contextSet).flag(Flag.RESOLVE_INHERITANCE, key.inheritance()).build();
+    }
+
+    protected PermissionValue getAnyUnder(Map<String, Boolean> permissions, String parentPermission) {
+        PermissionValue result = PermissionValue.DEFAULT;
+        int length = parentPermission.length();
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > length + 1 && key.charAt(length) == '.' && key.startsWith(parentPermission)) {
+                if (entry.getValue()) {
+                    return PermissionValue.TRUE;
+                }
+                result = PermissionValue.FALSE;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lists permissions with provided value, or all of them for PermissionValue.DEFAULT
+     */
+    protected List<String> getListFrom(Map<String, Boolean> permissions, PermissionValue value) {
+        List<String> list = new ArrayList<>(value == PermissionValue.DEFAULT ? permissions.size() : 10);
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            if (value == PermissionValue.DEFAULT || entry.getValue() == (value == PermissionValue.TRUE)) {
+                list.add(entry.getKey());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Lists permissions under parent one (with "parent." prefix), with that prefix removed
+     */
+    protected List<String> getListFrom(Map<String, Boolean> permissions, String parentPermission, PermissionValue value) {
+        List<String> list = new ArrayList<>();
+        int length = parentPermission.length();
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > length + 1 && key.charAt(length) == '.' && key.startsWith(parentPermission)
+                    && (value == PermissionValue.DEFAULT || entry.getValue() == (value == PermissionValue.TRUE))) {
+                list.add(key.substring(length + 1));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns all permissions with their values
+     */
+    protected Map<String, PermissionValue> getAllFrom(Map<String, Boolean> permissions) {
+        Map<String, PermissionValue> map = new LinkedHashMap<>((int) (permissions.size() / 0.75f) + 1);
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            map.put(entry.getKey(), PermissionValue.of(entry.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * Returns permissions under parent one (with "parent." prefix), with that prefix removed.
+     * Unlike full map, it isn't presized, as it usually contains only a small part of permissions
+     */
+    protected Map<String, PermissionValue> getAllFrom(Map<String, Boolean> permissions, String parentPermission) {
+        Map<String, PermissionValue> map = new LinkedHashMap<>();
+        int length = parentPermission.length();
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > length + 1 && key.charAt(length) == '.' && key.startsWith(parentPermission)) {
+                map.put(key.substring(length + 1), PermissionValue.of(entry.getValue()));
+            }
+        }
+        return map;
     }
 
     protected PermissionValue toValue(Tristate tristate) {
@@ -128,14 +453,7 @@ public class LuckPermsProvider implements PermissionProvider {
     @Override
     public PermissionValue check(UserContext user, String permission) {
         if (permission.endsWith(".?")) {
-            String basePermission = permission.substring(0, permission.length() - 2);
-
-            if (this.getList(user, basePermission, PermissionValue.TRUE).size() > 0) {
-                return PermissionValue.TRUE;
-            } else if (this.getList(user, basePermission, PermissionValue.FALSE).size() > 0) {
-                return PermissionValue.FALSE;
-            }
-            return PermissionValue.DEFAULT;
+            return this.hasAnyUnder(user, permission.substring(0, permission.length() - 2));
         }
 
         User lpUser = getUser(user);
@@ -146,6 +464,42 @@ public class LuckPermsProvider implements PermissionProvider {
         }
     }
 
+    @Override
+    public Map<String, PermissionValue> checkAll(UserContext user, Collection<String> permissions) {
+        Map<String, PermissionValue> map = new Object2ObjectOpenHashMap<>(permissions.size());
+        User lpUser = getUser(user);
+        if (lpUser == null) {
+            for (String permission : permissions) {
+                map.put(permission, PermissionValue.DEFAULT);
+            }
+            return map;
+        }
+
+        CachedPermissionData data = lpUser.getCachedData().getPermissionData();
+        Map<String, Boolean> worldPermissions = null;
+        for (String permission : permissions) {
+            if (permission.endsWith(".?")) {
+                if (worldPermissions == null) {
+                    worldPermissions = lpUser.getCachedData().getPermissionData(getQuery(lpUser, user.getWorld(), true)).getPermissionMap();
+                }
+                map.put(permission, getAnyUnder(worldPermissions, permission.substring(0, permission.length() - 2)));
+            } else {
+                map.put(permission, toValue(data.checkPermission(permission)));
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public PermissionValue hasAnyUnder(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        User lpUser = getUser(user);
+        if (lpUser == null) {
+            return PermissionValue.DEFAULT;
+        }
+
+        return getAnyUnder(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap(), parentPermission);
+    }
+
     @Override
     public List<String> getList(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
         User lpUser = getUser(user);
@@ -153,13 +507,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyList();
         }
 
-        var stream = lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.map(Map.Entry::getKey).collect(Collectors.toList());
+        return getListFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap(), value);
     }
 
     @Override
@@ -169,13 +517,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyList();
         }
 
-        var stream = lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.filter(n -> n.getKey().startsWith(parentPermission)).map(n -> n.getKey().substring(parentPermission.length() + 1)).collect(Collectors.toList());
+        return getListFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap(), parentPermission, value);
     }
 
     @Override
@@ -185,13 +527,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyList();
         }
 
-        var stream = lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.map(Map.Entry::getKey).collect(Collectors.toList());
+        return getListFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap(), value);
     }
 
     @Override
@@ -201,13 +537,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyList();
         }
 
-        var stream = lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.filter(n -> n.getKey().startsWith(parentPermission)).map(n -> n.getKey().substring(parentPermission.length() + 1)).collect(Collectors.toList());
+        return getListFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap(), parentPermission, value);
     }
 
     @Override
@@ -217,12 +547,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap().entrySet()) {
-            map.put(entry.getKey(), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
-        }
-
-        return map;
+        return getAllFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap());
     }
 
     @Override
@@ -232,14 +557,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap().entrySet()) {
-            if (entry.getKey().startsWith(parentPermission)) {
-                map.put(entry.getKey().substring(parentPermission.length() + 1), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
-            }
-        }
-
-        return map;
+        return getAllFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap(), parentPermission);
     }
 
     @Override
@@ -249,12 +567,7 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap().entrySet()) {
-            map.put(entry.getKey(), !entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
-        }
-
-        return map;
+        return getAllFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap());
     }
 
     @Override
@@ -264,14 +577,26 @@ public class LuckPermsProvider implements PermissionProvider {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap().entrySet()) {
-            if (entry.getKey().startsWith(parentPermission)) {
-                map.put(entry.getKey().substring(parentPermission.length() + 1), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
+        return getAllFrom(lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, false)).getPermissionMap(), parentPermission);
+    }
+
+    @Override
+    public <V> V getAsValue(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        User lpUser = getUser(user);
+        if (lpUser == null) {
+            return defaultValue;
+        }
+
+        V value = defaultValue;
+        int length = permission.length();
+        for (Map.Entry<String, Boolean> entry : lpUser.getCachedData().getPermissionData(getQuery(lpUser, world, true)).getPermissionMap().entrySet()) {
+            String key = entry.getKey();
+            if (entry.getValue() && key.length() > length + 1 && key.charAt(length) == '.' && key.startsWith(permission)) {
+                value = adapter.reduce(value, key.substring(length + 1));
             }
         }
 
-        return map;
+        return value;
     }
 
     @Override
@@ -290,6 +615,8 @@ public class LuckPermsProvider implements PermissionProvider {
                 }
                 lpUser.data().add(node.build());
             }
+            this.updateOfflineUser(lpUser);
+            PermissionChangeEvent.fire(user.getUuid(), permission, null);
         });
     }
 
@@ -310,6 +637,8 @@ public class LuckPermsProvider implements PermissionProvider {
                 node.expiry(duration.getSeconds());
                 lpUser.data().add(node.build());
             }
+            this.updateOfflineUser(lpUser);
+            PermissionChangeEvent.fire(user.getUuid(), permission, null);
         });
     }
 
@@ -328,6 +657,46 @@ public class LuckPermsProvider implements PermissionProvider {
         return list;
     }
 
+    @Override
+    public CompletableFuture<PermissionValue> checkAsync(UserContext user, String permission) {
+        return afterLoad(user, () -> this.check(user, permission), PermissionValue.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, PermissionValue>> checkAllAsync(UserContext user, Collection<String> permissions) {
+        return afterLoad(user, () -> this.checkAll(user, permissions), Collections.emptyMap());
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getListAsync(UserContext user, @Nullable ServerWorld world, PermissionValue value) {
+        return afterLoad(user, () -> this.getList(user, world, value), Collections.emptyList());
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getListAsync(UserContext user, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
+        return afterLoad(user, () -> this.getList(user, parentPermission, world, value), Collections.emptyList());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, @Nullable ServerWorld world) {
+        return afterLoad(user, () -> this.getAll(user, world), Collections.emptyMap());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, PermissionValue>> getAllAsync(UserContext user, String parentPermission, @Nullable ServerWorld world) {
+        return afterLoad(user, () -> this.getAll(user, parentPermission, world), Collections.emptyMap());
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getGroupsAsync(UserContext user, @Nullable ServerWorld world) {
+        return afterLoad(user, () -> this.getGroups(user, world), Collections.emptyList());
+    }
+
+    @Override
+    public <V> CompletableFuture<V> getAsValueAsync(UserContext user, String permission, @Nullable ServerWorld world, V defaultValue, ValueAdapter<V> adapter) {
+        return afterLoad(user, () -> this.getAsValue(user, permission, world, defaultValue, adapter), defaultValue);
+    }
+
     @Override
     public void addGroup(UserContext user, @Nullable ServerWorld world, String group) {
         getLuckPerms().getUserManager().modifyUser(user.getUuid(), lpUser -> {
@@ -336,6 +705,8 @@ public class LuckPermsProvider implements PermissionProvider {
                 node.withContext("world", world.getRegistryKey().getValue().toString());
             }
             lpUser.data().add(node.build());
+            this.updateOfflineUser(lpUser);
+            PermissionChangeEvent.fire(user.getUuid(), null, group);
         });
     }
 
@@ -348,6 +719,8 @@ public class LuckPermsProvider implements PermissionProvider {
             }
             node.expiry(duration.getSeconds());
             lpUser.data().add(node.build());
+            this.updateOfflineUser(lpUser);
+            PermissionChangeEvent.fire(user.getUuid(), null, group);
         });
     }
 
@@ -359,151 +732,128 @@ public class LuckPermsProvider implements PermissionProvider {
                 node.withContext("world", world.getRegistryKey().getValue().toString());
             }
             lpUser.data().remove(node.build());
+            this.updateOfflineUser(lpUser);
+            PermissionChangeEvent.fire(user.getUuid(), null, group);
         });
     }
 
     @Override
     public PermissionValue checkGroup(String group, @Nullable ServerWorld world, String permission) {
         if (permission.endsWith(".?")) {
-            String basePermission = permission.substring(0, permission.length() - 2);
+            return this.hasAnyUnderGroup(group, permission.substring(0, permission.length() - 2));
+        }
+        Group group1 = this.getGroup(group);
 
-            if (this.getListGroup(group, basePermission, PermissionValue.TRUE).size() > 0) {
-                return PermissionValue.TRUE;
-            } else if (this.getListGroup(group, basePermission, PermissionValue.FALSE).size() > 0) {
-                return PermissionValue.FALSE;
-            }
+        return group1 != null ? toValue(group1.getCachedData().getPermissionData().checkPermission(permission)) : PermissionValue.DEFAULT;
+    }
+
+    @Override
+    public PermissionValue hasAnyUnderGroup(String group, String parentPermission, @Nullable ServerWorld world) {
+        CachedPermissionData data = this.getGroupData(group, world, true);
+        if (data == null) {
             return PermissionValue.DEFAULT;
         }
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
 
-        return group1 != null ? toValue(group1.getCachedData().getPermissionData().checkPermission(permission)) : PermissionValue.DEFAULT;
+        return getAnyUnder(data.getPermissionMap(), parentPermission);
     }
 
     @Override
     public List<String> getListGroup(String group, @Nullable ServerWorld world, PermissionValue value) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, true);
+        if (data == null) {
             return Collections.emptyList();
         }
 
-        var stream = group1.getCachedData().getPermissionData(getQuery(group, world, true)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.map(Map.Entry::getKey).collect(Collectors.toList());
+        return getListFrom(data.getPermissionMap(), value);
     }
 
     @Override
     public List<String> getListGroup(String group, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, true);
+        if (data == null) {
             return Collections.emptyList();
         }
 
-        var stream = group1.getCachedData().getPermissionData(getQuery(group, world, true)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.filter(n -> n.getKey().startsWith(parentPermission)).map(n -> n.getKey().substring(parentPermission.length() + 1)).collect(Collectors.toList());
+        return getListFrom(data.getPermissionMap(), parentPermission, value);
     }
 
     @Override
     public List<String> getListNonInheritedGroup(String group, @Nullable ServerWorld world, PermissionValue value) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, false);
+        if (data == null) {
             return Collections.emptyList();
         }
 
-        var stream = group1.getCachedData().getPermissionData(getQuery(group, world, false)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.map(Map.Entry::getKey).collect(Collectors.toList());
+        return getListFrom(data.getPermissionMap(), value);
     }
 
     @Override
     public List<String> getListNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world, PermissionValue value) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, false);
+        if (data == null) {
             return Collections.emptyList();
         }
 
-        var stream = group1.getCachedData().getPermissionData(getQuery(group, world, false)).getPermissionMap().entrySet().stream();
-        if (value == PermissionValue.TRUE) {
-            stream = stream.filter(Map.Entry::getValue);
-        } else if (value == PermissionValue.FALSE) {
-            stream = stream.filter(n -> !n.getValue());
-        }
-        return stream.filter(n -> n.getKey().startsWith(parentPermission)).map(n -> n.getKey().substring(parentPermission.length() + 1)).collect(Collectors.toList());
+        return getListFrom(data.getPermissionMap(), parentPermission, value);
     }
 
     @Override
     public Map<String, PermissionValue> getAllGroup(String group, @Nullable ServerWorld world) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, true);
+        if (data == null) {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : group1.getCachedData().getPermissionData(getQuery(group, world, true)).getPermissionMap().entrySet()) {
-            map.put(entry.getKey(), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
-        }
-
-        return map;
+        return getAllFrom(data.getPermissionMap());
     }
 
     @Override
     public Map<String, PermissionValue> getAllGroup(String group, String parentPermission, @Nullable ServerWorld world) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, true);
+        if (data == null) {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : group1.getCachedData().getPermissionData(getQuery(group, world, true)).getPermissionMap().entrySet()) {
-            if (entry.getKey().startsWith(parentPermission)) {
-                map.put(entry.getKey().substring(parentPermission.length() + 1), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
-            }
-        }
-
-        return map;
+        return getAllFrom(data.getPermissionMap(), parentPermission);
     }
 
     @Override
     public Map<String, PermissionValue> getAllNonInheritedGroup(String group, @Nullable ServerWorld world) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, false);
+        if (data == null) {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : group1.getCachedData().getPermissionData(getQuery(group, world, false)).getPermissionMap().entrySet()) {
-            map.put(entry.getKey(), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
-        }
-
-        return map;
+        return getAllFrom(data.getPermissionMap());
     }
 
     @Override
     public Map<String, PermissionValue> getAllNonInheritedGroup(String group, String parentPermission, @Nullable ServerWorld world) {
-        Group group1 = getLuckPerms().getGroupManager().getGroup(group);
-        if (group1 == null) {
+        CachedPermissionData data = this.getGroupData(group, world, false);
+        if (data == null) {
             return Collections.emptyMap();
         }
 
-        Map<String, PermissionValue> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Boolean> entry : group1.getCachedData().getPermissionData(getQuery(group, world, false)).getPermissionMap().entrySet()) {
-            if (entry.getKey().startsWith(parentPermission)) {
-                map.put(entry.getKey().substring(parentPermission.length() + 1), entry.getValue() ? PermissionValue.TRUE : PermissionValue.FALSE);
+        return getAllFrom(data.getPermissionMap(), parentPermission);
+    }
+
+    private record OfflineUser(User user, long loadTime) {
+    }
+
+    private record CachedGroup(Group group, Map<QueryKey, QueryOptions> queries) {
+        QueryOptions getQuery(QueryKey key) {
+            QueryOptions options = this.queries.get(key);
+            if (options == null) {
+                options = createQuery(this.group.getQueryOptions(), ImmutableContextSet.empty(), key);
+                this.queries.put(key, options);
             }
+            return options;
         }
+    }
 
-        return map;
+    private record QueryKey(@Nullable RegistryKey<World> world, boolean inheritance) {
+        static QueryKey of(@Nullable ServerWorld world, boolean inheritance) {
+            return new QueryKey(world != null ? world.getRegistryKey() : null, inheritance);
+        }
     }
 }